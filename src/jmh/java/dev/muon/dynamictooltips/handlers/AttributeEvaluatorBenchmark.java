@@ -0,0 +1,80 @@
+package dev.muon.dynamictooltips.handlers;
+
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluating one attribute from a modifier list, the old tracker (linear id dedup, sort, one loop per operation)
+ * against the single-pass evaluator. The input repeats every modifier once, as when the player's modifiers and an
+ * item's overlap.
+ */
+@State(Scope.Thread)
+public class AttributeEvaluatorBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int modifiers;
+
+    private final Attribute attribute = Attributes.ENTITY_INTERACTION_RANGE.value();
+    private final double baseValue = 3.0;
+    private List<AttributeModifier> input;
+
+    @Setup
+    public void setup() {
+        TooltipFixtures.bootstrap();
+        List<AttributeModifier> unique = new ArrayList<>(TooltipFixtures.modifiers(modifiers, "evaluator").values());
+        input = new ArrayList<>(unique);
+        input.addAll(unique);
+
+        double legacy = legacy();
+        double evaluator = evaluator();
+        if (Double.compare(legacy, evaluator) != 0 && Math.abs(legacy - evaluator) > 1e-9) {
+            throw new IllegalStateException("Evaluator returned " + evaluator + ", the old loops " + legacy);
+        }
+    }
+
+    @Benchmark
+    public double legacy() {
+        List<AttributeModifier> applicable = new ArrayList<>();
+        for (AttributeModifier modifier : input) {
+            if (modifier.amount() == 0) continue;
+            if (applicable.stream().noneMatch(m -> m.id().equals(modifier.id()))) {
+                applicable.add(modifier);
+            }
+        }
+        applicable.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+
+        double value = baseValue;
+        for (AttributeModifier modifier : applicable) {
+            if (modifier.operation() == AttributeModifier.Operation.ADD_VALUE) {
+                value += modifier.amount();
+            }
+        }
+        double fromBase = 0;
+        for (AttributeModifier modifier : applicable) {
+            if (modifier.operation() == AttributeModifier.Operation.ADD_MULTIPLIED_BASE) {
+                fromBase += baseValue * modifier.amount();
+            }
+        }
+        value += fromBase;
+        for (AttributeModifier modifier : applicable) {
+            if (modifier.operation() == AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL) {
+                value *= 1.0 + modifier.amount();
+            }
+        }
+        return attribute.sanitizeValue(value);
+    }
+
+    @Benchmark
+    public double evaluator() {
+        return new AttributeEvaluator().acceptAll(input).evaluate(attribute, baseValue);
+    }
+}
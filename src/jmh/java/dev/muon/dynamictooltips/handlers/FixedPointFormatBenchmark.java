@@ -0,0 +1,58 @@
+package dev.muon.dynamictooltips.handlers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Formatting a tooltip's worth of values, the shared {@code DecimalFormat("#.##")} against {@link FixedPointFormat}.
+ * The values mix the integers and halves most modifiers use with arbitrary fractions.
+ */
+@State(Scope.Thread)
+public class FixedPointFormatBenchmark {
+
+    private final DecimalFormat decimalFormat = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT));
+    private double[] values;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new double[64];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (i % 3) {
+                case 0 -> random.nextInt(20);
+                case 1 -> random.nextInt(40) / 2.0 - 10;
+                default -> random.nextDouble() * 200 - 100;
+            };
+        }
+
+        for (double value : values) {
+            String expected = decimalFormat.format(value);
+            String actual = FixedPointFormat.format(value);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Formatted " + value + " as " + actual + ", DecimalFormat gives " + expected);
+            }
+        }
+    }
+
+    @Benchmark
+    public void decimalFormat(Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(decimalFormat.format(value));
+        }
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(FixedPointFormat.format(value));
+        }
+    }
+}
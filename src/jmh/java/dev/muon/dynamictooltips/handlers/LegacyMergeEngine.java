@@ -0,0 +1,321 @@
+package dev.muon.dynamictooltips.handlers;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+import dev.muon.dynamictooltips.Keybindings;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
+import net.minecraft.ChatFormatting;
+import net.minecraft.Util;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier.Operation;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.item.Item;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * The multimap-based {@code applyTextFor} that the flat engine in {@link MergedAttributeModel} replaced, copied from
+ * {@link AttributeTooltipHandler} as it was before, as the reference for {@link MergeEngineBenchmark} and the
+ * comparison test.
+ * <p>
+ * Only the attack and block range lines are left out: they need a local player and are skipped without one on both
+ * sides. The player's base values come from an attribute map, and modifier lines are built by the current
+ * {@link AttributeTooltipHandler#createModifierComponent}, which formats and colors them the same way.
+ */
+final class LegacyMergeEngine {
+
+    private static final DecimalFormat FORMAT = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT));
+
+    // Attributes that should be treated as "base" modifiers: Display a base value as green, gold when merged
+    private static final Set<ResourceLocation> BASE_ATTRIBUTE_IDS = Util.make(new HashSet<>(), set -> {
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_DAMAGE.value()));
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_SPEED.value()));
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ENTITY_INTERACTION_RANGE.value()));
+        set.add(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "damage"));
+        set.add(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "pull_time"));
+        set.remove(null);
+    });
+
+    private static final Map<ResourceLocation, ResourceLocation> BASE_MODIFIER_IDS = Util.make(new HashMap<>(), map -> {
+        map.put(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_DAMAGE.value()), Item.BASE_ATTACK_DAMAGE_ID);
+        map.put(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_SPEED.value()), Item.BASE_ATTACK_SPEED_ID);
+        map.put(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "damage"), ResourceLocation.fromNamespaceAndPath("ranged_weapon", "base_damage"));
+        map.put(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "pull_time"), ResourceLocation.fromNamespaceAndPath("ranged_weapon", "base_pull_time"));
+        map.remove(null);
+    });
+
+    private LegacyMergeEngine() {
+    }
+
+    static AttributeTooltipHandler.TooltipApplyResult applyTextFor(
+            Consumer<Component> tooltip,
+            SlotModifierBuckets.Bucket modifiers,
+            @Nullable AttributeMap attributes) {
+
+        // The combined modifiers as the old processTooltip handed them over
+        Multimap<Holder<Attribute>, AttributeModifier> modifierMap = LinkedListMultimap.create();
+        for (int i = 0; i < modifiers.size(); i++) {
+            modifierMap.put(modifiers.attribute(i), modifiers.modifier(i));
+        }
+
+        AttributeTooltipHandler.TooltipApplyResult result = new AttributeTooltipHandler.TooltipApplyResult();
+        if (modifierMap.isEmpty()) {
+            return result;
+        }
+
+        Map<Holder<Attribute>, BaseModifier> baseModifiers = new Reference2ReferenceLinkedOpenHashMap<>();
+        Multimap<Holder<Attribute>, AttributeModifier> remainingModifiers = LinkedListMultimap.create();
+
+        separateBaseModifiers(modifierMap, baseModifiers, remainingModifiers);
+        processBaseModifiers(tooltip, attributes, baseModifiers, result);
+        processRemainingModifiers(tooltip, remainingModifiers, baseModifiers.keySet(), result);
+
+        return result;
+    }
+
+    private static void separateBaseModifiers(
+            Multimap<Holder<Attribute>, AttributeModifier> modifierMap,
+            Map<Holder<Attribute>, BaseModifier> baseModifiersOutput,
+            Multimap<Holder<Attribute>, AttributeModifier> remainingModifiersOutput) {
+
+        remainingModifiersOutput.putAll(modifierMap);
+        var it = remainingModifiersOutput.entries().iterator();
+
+        while (it.hasNext()) {
+            var entry = it.next();
+            Holder<Attribute> attr = entry.getKey();
+            AttributeModifier modifier = entry.getValue();
+
+            if (isBaseModifier(attr.value(), modifier)) {
+                baseModifiersOutput.put(attr, new BaseModifier(modifier, new ArrayList<>()));
+                it.remove();
+            }
+        }
+
+        it = remainingModifiersOutput.entries().iterator();
+        while (it.hasNext()) {
+            var entry = it.next();
+            Holder<Attribute> attr = entry.getKey();
+            AttributeModifier modifier = entry.getValue();
+            BaseModifier base = baseModifiersOutput.get(attr);
+
+            if (base != null && isBaseAttribute(attr.value())) {
+                base.children.add(modifier);
+                it.remove();
+            }
+        }
+    }
+
+    private static void processBaseModifiers(
+            Consumer<Component> tooltip,
+            @Nullable AttributeMap attributes,
+            Map<Holder<Attribute>, BaseModifier> baseModifiers,
+            AttributeTooltipHandler.TooltipApplyResult result) {
+
+        for (var entry : baseModifiers.entrySet()) {
+            Holder<Attribute> attr = entry.getKey();
+            BaseModifier baseModifier = entry.getValue();
+
+            double entityBase = attributes == null ? 0 : attributes.getBaseValue(attr);
+            double baseValueFromModifier = baseModifier.base.amount();
+            double rawBaseValue = baseValueFromModifier + entityBase;
+            double finalValue = rawBaseValue;
+
+            // Sort children by operation to ensure correct calculation order
+            baseModifier.children.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+
+            for (AttributeModifier childModifier : baseModifier.children) {
+                finalValue = applyModifier(finalValue, rawBaseValue, childModifier);
+            }
+
+            boolean isMerged = !baseModifier.children.isEmpty();
+            result.needsShiftPrompt |= isMerged;
+
+            MutableComponent text = createBaseComponent(attr.value(), finalValue);
+            ChatFormatting color = isMerged ? null : AttributeTooltipHandler.BASE_COLOR;
+            Integer intColor = isMerged ? AttributeTooltipHandler.MERGE_BASE_MODIFIER_COLOR : null;
+            tooltip.accept(Component.literal(" ").append(text.withStyle(style -> {
+                if (intColor != null) return style.withColor(intColor);
+                if (color != null) return style.applyFormat(color);
+                return style;
+            })));
+
+            if (Keybindings.isDetailedView() && isMerged) {
+                text = createBaseComponent(attr.value(), rawBaseValue);
+                tooltip.accept(listHeader().append(text.withStyle(AttributeTooltipHandler.BASE_COLOR)));
+
+                for (AttributeModifier modifier : baseModifier.children) {
+                    tooltip.accept(listHeader().append(AttributeTooltipHandler.createModifierComponent(attr.value(), modifier)));
+                }
+            }
+
+            result.handledAttributes.add(attr);
+        }
+    }
+
+    private static double applyModifier(double currentValue, double baseValue, AttributeModifier modifier) {
+        return switch (modifier.operation()) {
+            case ADD_VALUE -> currentValue + modifier.amount();
+            case ADD_MULTIPLIED_BASE -> currentValue + modifier.amount() * baseValue;
+            case ADD_MULTIPLIED_TOTAL -> currentValue * (1.0 + modifier.amount());
+        };
+    }
+
+    private static void processRemainingModifiers(
+            Consumer<Component> tooltip,
+            Multimap<Holder<Attribute>, AttributeModifier> remainingModifiers,
+            Set<Holder<Attribute>> processedBaseAttributes,
+            AttributeTooltipHandler.TooltipApplyResult result) {
+
+        Map<Holder<Attribute>, Collection<AttributeModifier>> sortedRemaining = new TreeMap<>(Comparator.comparing(
+                h -> BuiltInRegistries.ATTRIBUTE.getKey(h.value()),
+                Comparator.nullsLast(Comparator.naturalOrder())
+        ));
+        for (Holder<Attribute> attr : remainingModifiers.keySet()) {
+            if (!processedBaseAttributes.contains(attr)) {
+                List<AttributeModifier> mods = new ArrayList<>(remainingModifiers.get(attr));
+                mods.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+                sortedRemaining.put(attr, mods);
+            }
+        }
+
+        for (Map.Entry<Holder<Attribute>, Collection<AttributeModifier>> entry : sortedRemaining.entrySet()) {
+            Holder<Attribute> attr = entry.getKey();
+            Collection<AttributeModifier> modifiers = entry.getValue();
+
+            // Skip if already handled OR if it's Block Interaction Range (handled separately later)
+            if (result.handledAttributes.contains(attr) || attr.value() == Attributes.BLOCK_INTERACTION_RANGE.value()) {
+                continue;
+            }
+            if (modifiers.isEmpty()) continue;
+
+            handleNonBaseMerging(attr, modifiers, tooltip, result);
+            result.handledAttributes.add(attr);
+        }
+    }
+
+    private static void handleNonBaseMerging(
+            Holder<Attribute> attr,
+            Collection<AttributeModifier> modifiers,
+            Consumer<Component> tooltip,
+            AttributeTooltipHandler.TooltipApplyResult result) {
+
+        Map<Operation, MergedModifierData> mergeData = new EnumMap<>(Operation.class);
+        List<AttributeModifier> nonMergeable = new ArrayList<>();
+
+        for (AttributeModifier modifier : modifiers) {
+            if (modifier.amount() == 0) continue;
+
+            boolean canMerge = modifier.operation() == Operation.ADD_VALUE ||
+                    modifier.operation() == Operation.ADD_MULTIPLIED_BASE ||
+                    modifier.operation() == Operation.ADD_MULTIPLIED_TOTAL;
+
+            // Prevent merging base modifiers again if they somehow ended up here
+            if (isBaseModifier(attr.value(), modifier)) {
+                canMerge = false;
+            }
+
+            if (canMerge) {
+                MergedModifierData data = mergeData.computeIfAbsent(modifier.operation(), op -> new MergedModifierData());
+                if (!data.children.isEmpty()) {
+                    data.isMerged = true;
+                    result.needsShiftPrompt = true;
+                }
+                data.sum += modifier.amount();
+                data.children.add(modifier);
+            } else {
+                nonMergeable.add(modifier);
+            }
+        }
+
+        for (Operation op : Operation.values()) {
+            MergedModifierData data = mergeData.get(op);
+            if (data == null || data.sum == 0) continue;
+
+            AttributeModifier fakeModifier = new AttributeModifier(AttributeTooltipHandler.FAKE_MERGED_ID, data.sum, op);
+            MutableComponent modComponent = AttributeTooltipHandler.createModifierComponent(attr.value(), fakeModifier);
+
+            if (data.isMerged) {
+                // Use light blue for merged non-base attributes
+                tooltip.accept(modComponent.withStyle(style -> style.withColor(AttributeTooltipHandler.MERGED_MODIFIER_COLOR)));
+
+                if (Keybindings.isDetailedView()) {
+                    data.children.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+                    for (AttributeModifier mod : data.children) {
+                        tooltip.accept(listHeader().append(AttributeTooltipHandler.createModifierComponent(attr.value(), mod)));
+                    }
+                }
+            } else if (!data.children.isEmpty()) {
+                tooltip.accept(AttributeTooltipHandler.createModifierComponent(attr.value(), data.children.get(0)));
+            }
+        }
+
+        nonMergeable.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+        for (AttributeModifier modifier : nonMergeable) {
+            tooltip.accept(AttributeTooltipHandler.createModifierComponent(attr.value(), modifier));
+        }
+    }
+
+    private static MutableComponent createBaseComponent(Attribute attribute, double value) {
+        return Component.translatable("attribute.modifier.equals.0",
+                FORMAT.format(value),
+                Component.translatable(attribute.getDescriptionId()));
+    }
+
+    private static boolean isBaseAttribute(Attribute attribute) {
+        ResourceLocation id = BuiltInRegistries.ATTRIBUTE.getKey(attribute);
+        return id != null && BASE_ATTRIBUTE_IDS.contains(id);
+    }
+
+    private static boolean isBaseModifier(Attribute attribute, AttributeModifier modifier) {
+        ResourceLocation baseId = getBaseModifierId(attribute);
+        return modifier.id().equals(baseId);
+    }
+
+    @Nullable
+    private static ResourceLocation getBaseModifierId(Attribute attribute) {
+        ResourceLocation id = BuiltInRegistries.ATTRIBUTE.getKey(attribute);
+        return id != null ? BASE_MODIFIER_IDS.get(id) : null;
+    }
+
+    private static MutableComponent listHeader() {
+        return Component.literal(" \u2507 ").withStyle(ChatFormatting.GRAY);
+    }
+
+    private static final class BaseModifier {
+        final AttributeModifier base;
+        final List<AttributeModifier> children;
+
+        BaseModifier(AttributeModifier base, List<AttributeModifier> children) {
+            this.base = base;
+            this.children = children;
+        }
+    }
+
+    private static final class MergedModifierData {
+        double sum = 0;
+        boolean isMerged = false;
+        List<AttributeModifier> children = new ArrayList<>();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.compat.WeaponInfo;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.item.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The flat merge engine against the multimap one it replaced, each separating, sorting and rendering one slot
+ * group's modifiers. Setup fails if the two produce different tooltips.
+ */
+@State(Scope.Thread)
+public class MergeEngineBenchmark {
+
+    @Param({"8", "32", "64"})
+    public int modifiers;
+
+    private SlotModifierBuckets.Bucket bucket;
+    private AttributeMap attributes;
+
+    @Setup
+    public void setup() {
+        TooltipFixtures.bootstrap();
+        bucket = SlotModifierBuckets.of(TooltipFixtures.stack(modifiers, 0, 1)).get(EquipmentSlotGroup.MAINHAND);
+        attributes = TooltipFixtures.playerAttributes();
+
+        List<Component> legacyLines = new ArrayList<>();
+        AttributeTooltipHandler.TooltipApplyResult legacyResult = renderLegacy(legacyLines::add);
+
+        List<Component> flatLines = new ArrayList<>();
+        AttributeTooltipHandler.TooltipApplyResult flatResult = renderFlat(flatLines::add);
+
+        if (!TooltipFixtures.rendered(legacyLines).equals(TooltipFixtures.rendered(flatLines))
+                || legacyResult.needsShiftPrompt != flatResult.needsShiftPrompt) {
+            throw new IllegalStateException("Flat merge engine output differs from the legacy engine for " + modifiers + " modifiers");
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(renderLegacy(blackhole::consume));
+    }
+
+    @Benchmark
+    public void flat(Blackhole blackhole) {
+        blackhole.consume(renderFlat(blackhole::consume));
+    }
+
+    private AttributeTooltipHandler.TooltipApplyResult renderLegacy(Consumer<Component> tooltip) {
+        return LegacyMergeEngine.applyTextFor(tooltip, bucket, attributes);
+    }
+
+    private AttributeTooltipHandler.TooltipApplyResult renderFlat(Consumer<Component> tooltip) {
+        MergedAttributeModel model = MergedAttributeModel.merge(EquipmentSlotGroup.MAINHAND, bucket);
+        return AttributeTooltipHandler.applyTextFor(ItemStack.EMPTY, tooltip, model, null, attributes, WeaponInfo.NONE);
+    }
+}
@@ -0,0 +1,112 @@
+package dev.muon.dynamictooltips.handlers;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HAND/MAINHAND/OFFHAND resolution as done by processTooltip, comparing the old string-keyed sets
+ * against the reused identity set. Run with the gc profiler to compare allocation rates.
+ */
+@State(Scope.Thread)
+public class ModifierKeySetBenchmark {
+
+    @Param({"60", "120"})
+    public int modifiersPerGroup;
+
+    private Multimap<Holder<Attribute>, AttributeModifier> hand;
+    private Multimap<Holder<Attribute>, AttributeModifier> mainhand;
+    private Multimap<Holder<Attribute>, AttributeModifier> offhand;
+    private final ModifierKeySet keys = new ModifierKeySet();
+
+    @Setup
+    public void setup() {
+        TooltipFixtures.bootstrap();
+        hand = TooltipFixtures.modifiers(modifiersPerGroup, "shared");
+        // Main hand repeats the shared modifiers and adds a few of its own, off hand only shares
+        mainhand = LinkedListMultimap.create(hand);
+        mainhand.putAll(TooltipFixtures.modifiers(modifiersPerGroup / 10, "mainhand"));
+        offhand = LinkedListMultimap.create(hand);
+    }
+
+    @Benchmark
+    public void stringKeys(Blackhole blackhole) {
+        Set<String> handKeys = stringKeys(hand);
+        blackhole.consume(!handKeys.containsAll(stringKeys(mainhand)));
+        blackhole.consume(!handKeys.containsAll(stringKeys(offhand)));
+        blackhole.consume(stringKeys(mainhand).equals(stringKeys(offhand)));
+
+        Multimap<Holder<Attribute>, AttributeModifier> combined = LinkedListMultimap.create(mainhand);
+        Set<String> existing = stringKeys(combined);
+        hand.forEach((attribute, modifier) -> {
+            if (!existing.contains(BuiltInRegistries.ATTRIBUTE.getKey(attribute.value()) + ":" + modifier.id())) {
+                combined.put(attribute, modifier);
+            }
+        });
+        blackhole.consume(combined);
+    }
+
+    @Benchmark
+    public void identityKeys(Blackhole blackhole) {
+        keys.clear();
+        addAll(keys, hand);
+        blackhole.consume(!containsAll(keys, mainhand));
+        blackhole.consume(!containsAll(keys, offhand));
+
+        keys.clear();
+        addAll(keys, mainhand);
+        boolean same = containsAll(keys, offhand);
+        keys.clear();
+        addAll(keys, offhand);
+        blackhole.consume(same && containsAll(keys, mainhand));
+
+        Multimap<Holder<Attribute>, AttributeModifier> combined = LinkedListMultimap.create(mainhand);
+        keys.clear();
+        addAll(keys, combined);
+        hand.forEach((attribute, modifier) -> {
+            if (!keys.contains(attribute, modifier.id())) {
+                combined.put(attribute, modifier);
+            }
+        });
+        blackhole.consume(combined);
+    }
+
+    // Multimap-shaped versions of the set's bulk operations, as the old multimap pipeline would have used them
+    private static void addAll(ModifierKeySet keys, Multimap<Holder<Attribute>, AttributeModifier> modifiers) {
+        modifiers.forEach((attribute, modifier) -> keys.add(attribute, modifier.id()));
+    }
+
+    private static boolean containsAll(ModifierKeySet keys, Multimap<Holder<Attribute>, AttributeModifier> modifiers) {
+        for (Map.Entry<Holder<Attribute>, AttributeModifier> entry : modifiers.entries()) {
+            if (!keys.contains(entry.getKey(), entry.getValue().id())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> stringKeys(Multimap<Holder<Attribute>, AttributeModifier> map) {
+        Set<String> keys = new HashSet<>();
+        map.forEach((attribute, modifier) -> {
+            ResourceLocation id = BuiltInRegistries.ATTRIBUTE.getKey(attribute.value());
+            if (id != null) {
+                keys.add(id + ":" + modifier.id());
+            }
+        });
+        return keys;
+    }
+}
@@ -0,0 +1,246 @@
+package dev.muon.dynamictooltips.handlers;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.locale.Language;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.FormattedText;
+import net.minecraft.network.chat.Style;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.FormattedCharSequence;
+import net.minecraft.util.StringDecomposer;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.TooltipFlag;
+import net.minecraft.world.item.component.ItemAttributeModifiers;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.ItemEnchantments;
+import net.neoforged.fml.config.IConfigSpec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Headless fixtures shared by the benchmarks: a bootstrapped registry, stub translations, the default config,
+ * a player attribute map and synthetic stacks with a chosen number of modifiers, enchantments and slot groups.
+ */
+public final class TooltipFixtures {
+
+    // Slot groups in the order they are handed out, hands first so the HAND/MAINHAND resolution is exercised
+    private static final EquipmentSlotGroup[] SLOT_GROUPS = {
+            EquipmentSlotGroup.MAINHAND, EquipmentSlotGroup.HAND, EquipmentSlotGroup.OFFHAND,
+            EquipmentSlotGroup.ARMOR, EquipmentSlotGroup.HEAD, EquipmentSlotGroup.CHEST,
+            EquipmentSlotGroup.LEGS, EquipmentSlotGroup.FEET, EquipmentSlotGroup.BODY
+    };
+
+    private static boolean bootstrapped = false;
+    private static HolderLookup.Provider registries;
+
+    private TooltipFixtures() {
+    }
+
+    public static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        registries = VanillaRegistries.createLookup();
+        // Must happen before I18n is first touched, it captures the language instance on class init
+        Language.inject(new StubLanguage(stubTranslations()));
+        loadDefaultConfig();
+        bootstrapped = true;
+    }
+
+    public static HolderLookup.Provider registries() {
+        return registries;
+    }
+
+    public static Item.TooltipContext tooltipContext() {
+        return Item.TooltipContext.of(registries);
+    }
+
+    public static List<Holder<Attribute>> attributes() {
+        return BuiltInRegistries.ATTRIBUTE.holders().<Holder<Attribute>>map(holder -> holder).toList();
+    }
+
+    public static List<Holder<Enchantment>> enchantments() {
+        return registries.lookupOrThrow(Registries.ENCHANTMENT).listElements().<Holder<Enchantment>>map(holder -> holder).toList();
+    }
+
+    /**
+     * A fresh player attribute map with vanilla defaults, standing in for the local player.
+     */
+    public static AttributeMap playerAttributes() {
+        return new AttributeMap(Player.createAttributes().build());
+    }
+
+    /**
+     * Builds {@code count} modifiers spread over the registered attributes, cycling through all three operations.
+     */
+    public static Multimap<Holder<Attribute>, AttributeModifier> modifiers(int count, String idPrefix) {
+        List<Holder<Attribute>> attributes = attributes();
+        AttributeModifier.Operation[] operations = AttributeModifier.Operation.values();
+        Multimap<Holder<Attribute>, AttributeModifier> map = LinkedListMultimap.create();
+        for (int i = 0; i < count; i++) {
+            ResourceLocation id = ResourceLocation.fromNamespaceAndPath("bench", idPrefix + "_" + i);
+            double amount = ((i % 7) - 3) * 0.25 + 0.1;
+            map.put(attributes.get(i % attributes.size()), new AttributeModifier(id, amount, operations[i % operations.length]));
+        }
+        return map;
+    }
+
+    /**
+     * A diamond sword carrying its default modifiers plus {@code modifierCount} synthetic ones spread over
+     * {@code slotGroups} slot groups, and {@code enchantmentCount} enchantments.
+     */
+    public static ItemStack stack(int modifierCount, int enchantmentCount, int slotGroups) {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+
+        ItemAttributeModifiers.Builder builder = ItemAttributeModifiers.builder();
+        stack.getOrDefault(DataComponents.ATTRIBUTE_MODIFIERS, ItemAttributeModifiers.EMPTY).modifiers()
+                .forEach(entry -> builder.add(entry.attribute(), entry.modifier(), entry.slot()));
+
+        int groups = Math.max(1, Math.min(slotGroups, SLOT_GROUPS.length));
+        int[] index = {0};
+        modifiers(modifierCount, "synthetic").forEach((attribute, modifier) ->
+                builder.add(attribute, modifier, SLOT_GROUPS[index[0]++ % groups]));
+        stack.set(DataComponents.ATTRIBUTE_MODIFIERS, builder.build());
+
+        List<Holder<Enchantment>> enchantments = enchantments();
+        ItemEnchantments.Mutable mutable = new ItemEnchantments.Mutable(ItemEnchantments.EMPTY);
+        for (int i = 0; i < Math.min(enchantmentCount, enchantments.size()); i++) {
+            mutable.set(enchantments.get(i), 1 + i % 5);
+        }
+        stack.set(DataComponents.ENCHANTMENTS, mutable.toImmutable());
+        return stack;
+    }
+
+    /**
+     * The vanilla tooltip lines for the stack, as ItemStackMixin receives them minus our own injections.
+     */
+    public static List<Component> vanillaLines(ItemStack stack) {
+        return stack.getTooltipLines(tooltipContext(), null, TooltipFlag.NORMAL);
+    }
+
+    /**
+     * Mirrors what the addAttributeTooltips wrapper tags in game. Fixture stacks have no lines after
+     * the attribute block, and enchantment lines precede the first header, so tagging everything is equivalent.
+     */
+    public static AttributeLineTags tags(List<Component> lines) {
+        AttributeLineTags tags = new AttributeLineTags();
+        var tagger = tags.wrap(line -> {});
+        lines.forEach(tagger);
+        return tags;
+    }
+
+    /**
+     * Each line as the text it renders, tagged with the style of each run, so tooltips built from differently nested
+     * components compare equal when they look the same.
+     */
+    public static List<String> rendered(List<Component> lines) {
+        List<String> rendered = new ArrayList<>(lines.size());
+        for (Component line : lines) {
+            StringBuilder out = new StringBuilder();
+            Style[] previous = {null};
+            line.visit((style, text) -> {
+                if (text.isEmpty()) return Optional.empty();
+                if (!style.equals(previous[0])) {
+                    out.append('[').append(style).append(']');
+                    previous[0] = style;
+                }
+                out.append(text);
+                return Optional.empty();
+            }, Style.EMPTY);
+            rendered.add(out.toString());
+        }
+        return rendered;
+    }
+
+    private static Map<String, String> stubTranslations() {
+        Map<String, String> translations = new HashMap<>();
+        translations.put("item.modifiers.mainhand", "When in Main Hand:");
+        translations.put("item.modifiers.offhand", "When in Off Hand:");
+        translations.put("item.modifiers.hand", "When in Hand:");
+        translations.put("item.modifiers.head", "When on Head:");
+        translations.put("item.modifiers.chest", "When on Body:");
+        translations.put("item.modifiers.legs", "When on Legs:");
+        translations.put("item.modifiers.feet", "When on Feet:");
+        translations.put("item.modifiers.body", "When worn:");
+        translations.put("item.modifiers.armor", "When worn:");
+        translations.put("attribute.modifier.equals.0", "%s %s");
+        translations.put("attribute.modifier.plus.0", "+%s %s");
+        translations.put("attribute.modifier.plus.1", "+%s%% %s");
+        translations.put("attribute.modifier.plus.2", "+%s%% %s");
+        translations.put("attribute.modifier.take.0", "-%s %s");
+        translations.put("attribute.modifier.take.1", "-%s%% %s");
+        translations.put("attribute.modifier.take.2", "-%s%% %s");
+        for (Holder<Enchantment> enchantment : enchantments()) {
+            ResourceLocation id = enchantment.unwrapKey().orElseThrow().location();
+            translations.put("enchantment." + id.getNamespace() + "." + id.getPath() + ".desc", "Description of " + id.getPath());
+        }
+        return translations;
+    }
+
+    private static void loadDefaultConfig() {
+        CommentedConfig config = CommentedConfig.inMemory();
+        DynamicTooltipsConfig.CLIENT_SPEC.correct(config);
+        DynamicTooltipsConfig.CLIENT_SPEC.acceptConfig(new IConfigSpec.ILoadedConfig() {
+            @Override
+            public CommentedConfig config() {
+                return config;
+            }
+
+            @Override
+            public void save() {
+            }
+        });
+    }
+
+    private static final class StubLanguage extends Language {
+        private final Map<String, String> translations;
+
+        StubLanguage(Map<String, String> translations) {
+            this.translations = translations;
+        }
+
+        @Override
+        public String getOrDefault(String key, String defaultValue) {
+            return translations.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public boolean has(String key) {
+            return translations.containsKey(key);
+        }
+
+        @Override
+        public boolean isDefaultRightToLeft() {
+            return false;
+        }
+
+        @Override
+        public FormattedCharSequence getVisualOrder(FormattedText text) {
+            return sink -> text.visit((style, content) -> StringDecomposer.iterateFormatted(content, style, sink)
+                    ? Optional.empty()
+                    : FormattedText.STOP_ITERATION, Style.EMPTY).isPresent();
+        }
+    }
+}
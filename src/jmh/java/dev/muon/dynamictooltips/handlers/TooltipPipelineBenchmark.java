@@ -0,0 +1,91 @@
+package dev.muon.dynamictooltips.handlers;
+
+import net.minecraft.core.Holder;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.enchantment.Enchantment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-call cost of each stage of the hover path. Run with the gc profiler (enabled in build.gradle)
+ * to get B/op alongside ns/op.
+ */
+@State(Scope.Thread)
+public class TooltipPipelineBenchmark {
+
+    @Param({"8", "32", "64"})
+    public int modifiers;
+
+    @Param({"0", "10", "30"})
+    public int enchantments;
+
+    @Param({"1", "3", "5"})
+    public int slotGroups;
+
+    private ItemStack stack;
+    private AttributeMap playerAttributes;
+    private List<Component> vanillaLines;
+    private AttributeLineTags tags;
+    private List<Holder<Enchantment>> stackEnchantments;
+
+    @Setup
+    public void setup() {
+        TooltipFixtures.bootstrap();
+        stack = TooltipFixtures.stack(modifiers, enchantments, slotGroups);
+        playerAttributes = TooltipFixtures.playerAttributes();
+        vanillaLines = TooltipFixtures.vanillaLines(stack);
+        tags = TooltipFixtures.tags(vanillaLines);
+
+        stackEnchantments = new ArrayList<>(stack.getEnchantments().keySet());
+    }
+
+    /**
+     * Stand-in for an uncached ItemStackMixin.modifyTooltipLines: vanilla line generation followed by processing.
+     */
+    @Benchmark
+    public List<Component> modifyTooltipLines() {
+        List<Component> lines = TooltipFixtures.vanillaLines(stack);
+        AttributeTooltipHandler.processTooltip(stack, lines, null, playerAttributes, TooltipFixtures.tags(lines));
+        return lines;
+    }
+
+    @Benchmark
+    public List<Component> processTooltipTagged() {
+        List<Component> lines = new ArrayList<>(vanillaLines);
+        AttributeTooltipHandler.processTooltip(stack, lines, null, playerAttributes, tags);
+        return lines;
+    }
+
+    @Benchmark
+    public List<Component> processTooltipUntagged() {
+        List<Component> lines = new ArrayList<>(vanillaLines);
+        AttributeTooltipHandler.processTooltip(stack, lines, null, playerAttributes, null);
+        return lines;
+    }
+
+    /**
+     * Uncached slot resolution and merging, what a stack with new components pays on its first hover.
+     */
+    @Benchmark
+    public MergedAttributeModel buildModel() {
+        return MergedAttributeModel.build(stack, EquipmentSlotGroup.MAINHAND);
+    }
+
+    @Benchmark
+    public void insertDescriptions(Blackhole blackhole) {
+        EnchantmentTooltipHandler handler = EnchantmentTooltipHandler.getInstance();
+        for (int i = 0; i < stackEnchantments.size(); i++) {
+            handler.insertDescriptions(stackEnchantments.get(i), 1 + i % 5, blackhole::consume);
+        }
+    }
+}
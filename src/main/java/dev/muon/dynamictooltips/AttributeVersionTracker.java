@@ -0,0 +1,9 @@
+package dev.muon.dynamictooltips;
+
+/**
+ * Interface for mixins to expose a version counter that changes whenever an attribute in the map is modified.
+ */
+public interface AttributeVersionTracker {
+
+    int dynamictooltips$getVersion();
+}
@@ -0,0 +1,13 @@
+package dev.muon.dynamictooltips;
+
+/**
+ * Source of the show-details key state read by the tooltip handlers. In game this is the latch fed by key events,
+ * headless callers (benchmarks) can install their own through {@link Keybindings#setInput}.
+ */
+@FunctionalInterface
+public interface DetailedViewInput {
+
+    DetailedViewInput RELEASED = () -> false;
+
+    boolean isDetailedView();
+}
@@ -4,11 +4,22 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.client.screen.v1.ScreenEvents;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.minecraft.server.packs.PackType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.muon.dynamictooltips.compat.Integrations;
 import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
+import dev.muon.dynamictooltips.handlers.EnchantmentDescriptionIndex;
+import dev.muon.dynamictooltips.handlers.EnchantmentTooltipHandler;
+import dev.muon.dynamictooltips.handlers.TooltipCache;
 import fuzs.forgeconfigapiport.fabric.api.neoforge.v4.NeoForgeConfigRegistry;
+import fuzs.forgeconfigapiport.fabric.api.neoforge.v4.NeoForgeModConfigEvents;
 import net.neoforged.fml.config.ModConfig;
 
 @Environment(EnvType.CLIENT)
@@ -20,6 +31,35 @@ public class DynamicTooltips implements ModInitializer {
     @Override
     public void onInitialize() {
         NeoForgeConfigRegistry.INSTANCE.register(MODID, ModConfig.Type.CLIENT, DynamicTooltipsConfig.CLIENT_SPEC);
+        NeoForgeModConfigEvents.loading(MODID).register(DynamicTooltipsConfig::onConfigChanged);
+        NeoForgeModConfigEvents.reloading(MODID).register(DynamicTooltipsConfig::onConfigChanged);
         Keybindings.register();
+        // Key events can be missed while rebinding, re-read the key whenever a screen opens. Focus changes are
+        // handled by MinecraftMixin
+        ScreenEvents.AFTER_INIT.register((client, screen, width, height) -> Keybindings.resync());
+        ResourceManagerHelper.get(PackType.CLIENT_RESOURCES).registerReloadListener(new TooltipReloadListener());
+        // Enchantments are a synced registry, so their descriptions can differ between servers
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            EnchantmentTooltipHandler.getInstance().clearCaches();
+            EnchantmentDescriptionIndex.reportCoverage(handler.registryAccess());
+        });
+        if (!Integrations.isEmpty()) {
+            // Synced data (e.g. Better Combat's weapon registry) is resent on join and after data reloads, which also resend tags
+            ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> invalidateIntegrations());
+            ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> invalidateIntegrations());
+            CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+                // Also fired on the integrated server's thread, only the client side concerns these caches
+                if (client) invalidateIntegrations();
+            });
+        }
+        if (TooltipProfiler.ENABLED) {
+            LOGGER.info("Tooltip profiling enabled, reports are written to logs/dynamictooltips-profile.txt");
+            ClientLifecycleEvents.CLIENT_STOPPING.register(client -> TooltipProfiler.dump());
+        }
+    }
+
+    private static void invalidateIntegrations() {
+        Integrations.invalidate();
+        TooltipCache.clear();
     }
 }
\ No newline at end of file
@@ -1,10 +1,8 @@
 package dev.muon.dynamictooltips;
 
-import com.mojang.blaze3d.platform.InputConstants;
-import dev.muon.dynamictooltips.mixin.accessor.KeyMappingAccessor;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.minecraft.client.KeyMapping;
-import net.minecraft.client.Minecraft;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.glfw.GLFW;
 
 public class Keybindings {
@@ -13,30 +11,53 @@ public class Keybindings {
 
     public static KeyMapping SHOW_DETAILS_KEY;
 
+    // Not registered when running headless (benchmarks), the key then reads as released
+    @Nullable
+    private static LatchedDetailedViewInput latch = null;
+    private static DetailedViewInput input = DetailedViewInput.RELEASED;
+
     public static void register() {
         SHOW_DETAILS_KEY = KeyBindingHelper.registerKeyBinding(new KeyMapping(
                 KEY_SHOW_DETAILS,
                 GLFW.GLFW_KEY_LEFT_SHIFT,
                 KEY_CATEGORY_DYNAMIC_TOOLTIPS 
         ));
+        latch = new LatchedDetailedViewInput(SHOW_DETAILS_KEY);
+        input = latch;
     }
 
     public static boolean isDetailedView() {
-        KeyMapping mapping = Keybindings.SHOW_DETAILS_KEY;
-        InputConstants.Key boundKey = ((KeyMappingAccessor) (Object) mapping).dynamicTooltips$getKey();
+        return input.isDetailedView();
+    }
 
-        if (boundKey == null || boundKey.equals(InputConstants.UNKNOWN)) {
-            return false;
+    /**
+     * Replaces the key state source, e.g. to drive the detailed view from a benchmark.
+     */
+    public static void setInput(DetailedViewInput input) {
+        Keybindings.input = input;
+    }
+
+    public static void onKey(int keysym, int scancode, int action) {
+        if (latch != null) {
+            latch.onKey(keysym, scancode, action);
         }
+    }
 
-        long windowHandle = Minecraft.getInstance().getWindow().getWindow();
+    public static void onMouseButton(int button, int action) {
+        if (latch != null) {
+            latch.onMouseButton(button, action);
+        }
+    }
 
-        if (boundKey.getType() == InputConstants.Type.KEYSYM || boundKey.getType() == InputConstants.Type.SCANCODE) {
-            return InputConstants.isKeyDown(windowHandle, boundKey.getValue());
+    public static void onFocusChanged(boolean focused) {
+        if (latch != null) {
+            latch.onFocusChanged(focused);
         }
-        if (boundKey.getType() == InputConstants.Type.MOUSE) {
-            return GLFW.glfwGetMouseButton(windowHandle, boundKey.getValue()) == GLFW.GLFW_PRESS;
+    }
+
+    public static void resync() {
+        if (latch != null) {
+            latch.resync();
         }
-        return false;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package dev.muon.dynamictooltips;
+
+import com.mojang.blaze3d.platform.InputConstants;
+import dev.muon.dynamictooltips.mixin.accessor.KeyMappingAccessor;
+import net.minecraft.client.KeyMapping;
+import net.minecraft.client.Minecraft;
+import org.lwjgl.glfw.GLFW;
+
+/**
+ * Show-details key state latched from the window's key and mouse button events, so reading it while building a
+ * tooltip is a field read rather than a native call. Events are delivered while the frame polls input, so the state
+ * holds for the whole frame.
+ * <p>
+ * Events can be missed, e.g. a release while the window is unfocused or a rebind in the controls screen. The state is
+ * cleared when the window loses focus and polled from GLFW once it regains it, and whenever a screen is initialised.
+ * Render thread only.
+ */
+final class LatchedDetailedViewInput implements DetailedViewInput {
+
+    private final KeyMapping mapping;
+    private boolean down;
+
+    LatchedDetailedViewInput(KeyMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    @Override
+    public boolean isDetailedView() {
+        return down;
+    }
+
+    void onKey(int keysym, int scancode, int action) {
+        if (mapping.matches(keysym, scancode)) {
+            down = action != GLFW.GLFW_RELEASE;
+        }
+    }
+
+    void onMouseButton(int button, int action) {
+        if (mapping.matchesMouse(button)) {
+            down = action != GLFW.GLFW_RELEASE;
+        }
+    }
+
+    void onFocusChanged(boolean focused) {
+        down = focused && poll();
+    }
+
+    void resync() {
+        down = poll();
+    }
+
+    private boolean poll() {
+        InputConstants.Key boundKey = ((KeyMappingAccessor) (Object) mapping).dynamicTooltips$getKey();
+
+        if (boundKey == null || boundKey.equals(InputConstants.UNKNOWN)) {
+            return false;
+        }
+
+        long windowHandle = Minecraft.getInstance().getWindow().getWindow();
+
+        if (boundKey.getType() == InputConstants.Type.KEYSYM || boundKey.getType() == InputConstants.Type.SCANCODE) {
+            return InputConstants.isKeyDown(windowHandle, boundKey.getValue());
+        }
+        if (boundKey.getType() == InputConstants.Type.MOUSE) {
+            return GLFW.glfwGetMouseButton(windowHandle, boundKey.getValue()) == GLFW.GLFW_PRESS;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package dev.muon.dynamictooltips;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+/**
+ * Presence of optional integrations, resolved once at class load. Mods can't be added or removed at runtime.
+ */
+public final class ModCompat {
+
+    public static final boolean BETTER_COMBAT = FabricLoader.getInstance().isModLoaded("bettercombat");
+    public static final boolean TIERED = FabricLoader.getInstance().isModLoaded("tiered");
+
+    private ModCompat() {
+    }
+}
@@ -0,0 +1,196 @@
+package dev.muon.dynamictooltips;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import dev.muon.dynamictooltips.handlers.TooltipCache;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.Util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in timing and allocation counters for the tooltip pipeline, enabled with {@code -Ddynamictooltips.profile=true}.
+ * Every call site is guarded by {@link #ENABLED}, a compile-time-constant-like static final, so with the property
+ * unset the JIT removes the hooks entirely.
+ * <p>
+ * Each stage keeps a log2 histogram of its wall time, plus the bytes allocated by the calling thread when the JVM
+ * supports it. The report ends with the tooltip cache's hit rate. Only the render thread is recorded, so none of this needs synchronization. The cumulative report is
+ * logged and written to {@code logs/dynamictooltips-profile.txt} periodically and again when the client stops.
+ */
+public final class TooltipProfiler {
+
+    public static final boolean ENABLED = Boolean.getBoolean("dynamictooltips.profile");
+
+    public enum Stage {
+        MODIFY_TOOLTIP_LINES("modifyTooltipLines"),
+        PROCESS_TOOLTIP("processTooltip"),
+        ATTACK_RANGE("appendAttackRangeLines"),
+        BLOCK_RANGE("appendBlockRangeLines"),
+        ENCHANTMENT_DESCRIPTIONS("insertDescriptions");
+
+        private final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private static final long DUMP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int BUCKETS = 64;
+    private static final Stage[] STAGES = Stage.values();
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = resolveThreadBean();
+
+    // Indexed by stage ordinal
+    private static final long[][] histograms = new long[STAGES.length][BUCKETS];
+    private static final long[] calls = new long[STAGES.length];
+    private static final long[] totalNanos = new long[STAGES.length];
+    private static final long[] maxNanos = new long[STAGES.length];
+    private static final long[] totalBytes = new long[STAGES.length];
+    private static final long[] startNanos = new long[STAGES.length];
+    private static final long[] startBytes = new long[STAGES.length];
+    // Only the outermost call of a re-entered stage is measured, nested ones are already inside its window
+    private static final int[] depth = new int[STAGES.length];
+
+    private static long lastDumpNanos = System.nanoTime();
+
+    private TooltipProfiler() {
+    }
+
+    public static void begin(Stage stage) {
+        if (!RenderSystem.isOnRenderThread()) return;
+        int i = stage.ordinal();
+        if (depth[i]++ > 0) return;
+        startBytes[i] = allocatedBytes();
+        startNanos[i] = System.nanoTime();
+    }
+
+    public static void end(Stage stage) {
+        if (!RenderSystem.isOnRenderThread()) return;
+        long now = System.nanoTime();
+        int i = stage.ordinal();
+        if (depth[i] == 0 || --depth[i] > 0) return;
+
+        long elapsed = now - startNanos[i];
+        calls[i]++;
+        totalNanos[i] += elapsed;
+        maxNanos[i] = Math.max(maxNanos[i], elapsed);
+        histograms[i][bucket(elapsed)]++;
+        long bytes = allocatedBytes();
+        if (bytes >= 0 && startBytes[i] >= 0) {
+            totalBytes[i] += bytes - startBytes[i];
+        }
+
+        // Only dump between top-level tooltips, so no stage is mid-measurement
+        if (stage == Stage.MODIFY_TOOLTIP_LINES && now - lastDumpNanos >= DUMP_INTERVAL_NANOS) {
+            lastDumpNanos = now;
+            dump();
+        }
+    }
+
+    /**
+     * Logs the report and writes it to the log directory off-thread.
+     */
+    public static void dump() {
+        if (!RenderSystem.isOnRenderThread()) return;
+        String report = buildReport();
+        DynamicTooltips.LOGGER.info("Tooltip profile:\n{}", report);
+        Path file = FabricLoader.getInstance().getGameDir().resolve("logs").resolve("dynamictooltips-profile.txt");
+        Util.ioPool().execute(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, report, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                DynamicTooltips.LOGGER.warn("Failed to write tooltip profile to {}", file, e);
+            }
+        });
+    }
+
+    private static String buildReport() {
+        StringBuilder out = new StringBuilder();
+        out.append("Dynamic Tooltips profile, ").append(LocalDateTime.now()).append('\n');
+        if (THREAD_BEAN == null) {
+            out.append("(allocation tracking unsupported on this JVM)\n");
+        }
+        for (Stage stage : STAGES) {
+            int i = stage.ordinal();
+            long count = calls[i];
+            out.append(String.format(Locale.ROOT, "%-24s calls=%d", stage.displayName, count));
+            if (count == 0) {
+                out.append('\n');
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, " mean=%s p50<=%s p99<=%s max=%s",
+                    formatNanos(totalNanos[i] / count),
+                    formatNanos(percentileUpperBound(histograms[i], count, 0.50)),
+                    formatNanos(percentileUpperBound(histograms[i], count, 0.99)),
+                    formatNanos(maxNanos[i])));
+            if (THREAD_BEAN != null) {
+                out.append(String.format(Locale.ROOT, " alloc/call=%dB", totalBytes[i] / count));
+            }
+            out.append('\n');
+            for (int b = 0; b < BUCKETS; b++) {
+                if (histograms[i][b] != 0) {
+                    out.append(String.format(Locale.ROOT, "    [%s, %s) %d%n",
+                            formatNanos(b == 0 ? 0 : 1L << b), formatNanos(bucketLimit(b)), histograms[i][b]));
+                }
+            }
+        }
+        long hits = TooltipCache.hits();
+        long lookups = hits + TooltipCache.misses();
+        out.append(String.format(Locale.ROOT, "%-24s hits=%d misses=%d hitRate=%.1f%%%n", "tooltipCache",
+                hits, lookups - hits, lookups == 0 ? 0.0 : 100.0 * hits / lookups));
+        return out.toString();
+    }
+
+    // Bucket b holds durations in [2^b, 2^(b+1)), bucket 0 also takes 0 and 1
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long bucketLimit(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : 1L << (bucket + 1);
+    }
+
+    private static long percentileUpperBound(long[] histogram, long count, double percentile) {
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[b];
+            if (seen >= target) {
+                return bucketLimit(b);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000L) return nanos + "ns";
+        if (nanos < 1_000_000L) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000L) return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+    // -1 when unsupported
+    private static long allocatedBytes() {
+        return THREAD_BEAN != null ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean resolveThreadBean() {
+        if (!ENABLED) return null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package dev.muon.dynamictooltips;
+
+import dev.muon.dynamictooltips.handlers.EnchantmentDescriptionIndex;
+import dev.muon.dynamictooltips.handlers.EnchantmentTooltipHandler;
+import dev.muon.dynamictooltips.handlers.TooltipCache;
+import dev.muon.dynamictooltips.handlers.TooltipComponents;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Flushes language-dependent tooltip caches once the client's languages have been (re)loaded.
+ */
+public class TooltipReloadListener implements SimpleSynchronousResourceReloadListener {
+
+    private static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(DynamicTooltips.MODID, "tooltip_caches");
+
+    @Override
+    public ResourceLocation getFabricId() {
+        return ID;
+    }
+
+    @Override
+    public Collection<ResourceLocation> getFabricDependencies() {
+        return List.of(ResourceReloadListenerKeys.LANGUAGES);
+    }
+
+    @Override
+    public void onResourceManagerReload(ResourceManager resourceManager) {
+        EnchantmentTooltipHandler.getInstance().clearCaches();
+        EnchantmentDescriptionIndex.rebuild();
+        TooltipComponents.rebuild();
+        TooltipCache.clear();
+    }
+}
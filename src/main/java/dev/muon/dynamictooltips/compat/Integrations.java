@@ -0,0 +1,70 @@
+package dev.muon.dynamictooltips.compat;
+
+import dev.muon.dynamictooltips.DynamicTooltips;
+import dev.muon.dynamictooltips.ModCompat;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The integrations whose mods are loaded, resolved once at startup. Implementations are looked up by name so that
+ * neither they nor the classes of the mods they integrate with are loaded otherwise.
+ */
+public final class Integrations {
+
+    private static final TooltipIntegration[] ACTIVE = load();
+
+    private Integrations() {
+    }
+
+    private static TooltipIntegration[] load() {
+        List<TooltipIntegration> active = new ArrayList<>();
+        if (ModCompat.BETTER_COMBAT) {
+            create("dev.muon.dynamictooltips.compat.bettercombat.BetterCombatIntegration", active);
+        }
+        if (ModCompat.TIERED) {
+            create("dev.muon.dynamictooltips.compat.tiered.TieredIntegration", active);
+        }
+        return active.toArray(new TooltipIntegration[0]);
+    }
+
+    private static void create(String className, List<TooltipIntegration> active) {
+        try {
+            active.add((TooltipIntegration) Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            DynamicTooltips.LOGGER.error("Failed to load integration {}, skipping it", className, e);
+        }
+    }
+
+    public static boolean isEmpty() {
+        return ACTIVE.length == 0;
+    }
+
+    public static void addHeaderKeys(BiConsumer<String, EquipmentSlotGroup> headers) {
+        for (TooltipIntegration integration : ACTIVE) {
+            integration.addHeaderKeys(headers);
+        }
+    }
+
+    /**
+     * @return the first integration's data for the stack, or {@link WeaponInfo#NONE}
+     */
+    public static WeaponInfo weaponInfo(ItemStack stack) {
+        for (TooltipIntegration integration : ACTIVE) {
+            WeaponInfo info = integration.weaponInfo(stack);
+            if (info != null) {
+                return info;
+            }
+        }
+        return WeaponInfo.NONE;
+    }
+
+    public static void invalidate() {
+        for (TooltipIntegration integration : ACTIVE) {
+            integration.invalidate();
+        }
+    }
+}
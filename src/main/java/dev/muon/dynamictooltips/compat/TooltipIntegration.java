@@ -0,0 +1,34 @@
+package dev.muon.dynamictooltips.compat;
+
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Hooks a mod integration can implement. Implementations are only instantiated, and their classes only loaded, when
+ * the mod they integrate with is present (see {@link Integrations}), so they may reference that mod's classes freely.
+ */
+public interface TooltipIntegration {
+
+    /**
+     * Registers translation keys of slot headers the mod emits in place of vanilla's.
+     */
+    default void addHeaderKeys(BiConsumer<String, EquipmentSlotGroup> headers) {
+    }
+
+    /**
+     * @return the stack's weapon data, or null if this integration doesn't recognise it
+     */
+    @Nullable
+    default WeaponInfo weaponInfo(ItemStack stack) {
+        return null;
+    }
+
+    /**
+     * Drops anything cached from data the server sends, called on join, disconnect and data reloads.
+     */
+    default void invalidate() {
+    }
+}
@@ -0,0 +1,16 @@
+package dev.muon.dynamictooltips.compat;
+
+/**
+ * Weapon data an integration reports for the stack being hovered, resolved once per tooltip and handed to every
+ * handler that needs it.
+ *
+ * @param isWeapon          whether an integration recognised the stack as a weapon
+ * @param isTwoHanded       whether the weapon needs both hands
+ * @param rangeBonus        attack range added on top of the entity interaction range
+ * @param hasRangeAttribute whether the stack carries its own entity interaction range modifiers, which replace the bonus
+ * @param showAttackRange   whether the attack range line is enabled for this weapon
+ */
+public record WeaponInfo(boolean isWeapon, boolean isTwoHanded, double rangeBonus, boolean hasRangeAttribute, boolean showAttackRange) {
+
+    public static final WeaponInfo NONE = new WeaponInfo(false, false, 0, false, false);
+}
@@ -0,0 +1,50 @@
+package dev.muon.dynamictooltips.compat.bettercombat;
+
+import dev.muon.dynamictooltips.compat.TooltipIntegration;
+import dev.muon.dynamictooltips.compat.WeaponInfo;
+import net.bettercombat.api.WeaponAttributes;
+import net.bettercombat.client.BetterCombatClientMod;
+import net.bettercombat.logic.EntityAttributeHelper;
+import net.bettercombat.logic.WeaponRegistry;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weapon data from Better Combat. Weapon attributes are assigned per item, so lookups are cached by {@link Item}
+ * until the registry is resent. Player-independent tooltips can be built off the render thread, so the cache is
+ * concurrent.
+ */
+public final class BetterCombatIntegration implements TooltipIntegration {
+
+    private final Map<Item, Optional<WeaponAttributes>> attributes = new ConcurrentHashMap<>();
+
+    @Nullable
+    @Override
+    public WeaponInfo weaponInfo(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return null;
+        }
+        WeaponAttributes weaponAttributes = attributes
+                .computeIfAbsent(stack.getItem(), item -> Optional.ofNullable(WeaponRegistry.getAttributes(stack)))
+                .orElse(null);
+        if (weaponAttributes == null) {
+            return null;
+        }
+        return new WeaponInfo(true,
+                weaponAttributes.isTwoHanded(),
+                weaponAttributes.rangeBonus(),
+                // Depends on the stack's own modifiers, so only resolved per tooltip
+                EntityAttributeHelper.itemHasRangeAttribute(stack),
+                BetterCombatClientMod.config.isTooltipAttackRangeEnabled);
+    }
+
+    @Override
+    public void invalidate() {
+        attributes.clear();
+    }
+}
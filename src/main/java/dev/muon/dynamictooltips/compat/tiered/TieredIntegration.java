@@ -0,0 +1,21 @@
+package dev.muon.dynamictooltips.compat.tiered;
+
+import dev.muon.dynamictooltips.compat.TooltipIntegration;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Tiered replaces the armor slot headers with its own.
+ */
+public final class TieredIntegration implements TooltipIntegration {
+
+    @Override
+    public void addHeaderKeys(BiConsumer<String, EquipmentSlotGroup> headers) {
+        headers.accept("tiered.slot.feet", EquipmentSlotGroup.FEET);
+        headers.accept("tiered.slot.head", EquipmentSlotGroup.HEAD);
+        headers.accept("tiered.slot.chest", EquipmentSlotGroup.CHEST);
+        headers.accept("tiered.slot.legs", EquipmentSlotGroup.LEGS);
+        headers.accept("tiered.slot.body", EquipmentSlotGroup.BODY);
+    }
+}
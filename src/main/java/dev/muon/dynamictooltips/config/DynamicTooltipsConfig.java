@@ -1,11 +1,17 @@
 package dev.muon.dynamictooltips.config;
 
 import com.google.common.collect.Lists;
-import net.minecraft.ChatFormatting;
+import dev.muon.dynamictooltips.DynamicTooltips;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
 import net.minecraft.resources.ResourceLocation;
+import net.neoforged.fml.config.ModConfig;
 import net.neoforged.neoforge.common.ModConfigSpec;
 import org.jetbrains.annotations.Nullable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 import java.util.regex.Pattern;
 
 public class DynamicTooltipsConfig {
@@ -26,12 +32,134 @@ public class DynamicTooltipsConfig {
         CLIENT_SPEC = clientBuilder.build();
     }
 
+    // Parsed view of the config read by the render path, swapped as a whole on load and reload
+    private static volatile Snapshot snapshot = Snapshot.defaults();
+
+    /**
+     * Bumped whenever the config is loaded or reloaded, so caches can key on it.
+     * Read from the same snapshot as the values it versions, so the two can never disagree.
+     */
+    public static int generation() {
+        return snapshot.generation();
+    }
+
+    public static Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public static void onConfigChanged(ModConfig config) {
+        publish(Snapshot::fromConfig);
+    }
+
+    // Config events may arrive on the file watcher thread, serialize rebuilds so generations stay ordered
+    static synchronized void publish(IntFunction<Snapshot> factory) {
+        snapshot = factory.apply(snapshot.generation() + 1);
+    }
+
+    /**
+     * Immutable, pre-parsed copy of the client config. Colors are resolved once here instead of per tooltip line.
+     *
+     * @param enchantmentNameColor null when left at the vanilla gray, in which case names are not recolored
+     * @param attributeColorRules  unmodifiable rule table compiled from {@code attributeColorOverrides}, keyed by attribute id
+     * @param generation           incremented on every load and reload
+     */
+    public record Snapshot(boolean appendBlockInteractionRangeTooltip,
+                           boolean showUsabilityHint,
+                           boolean collapseEnchantmentTooltipsOnGear,
+                           boolean colorEnchantmentNames,
+                           @Nullable TextColor enchantmentNameColor,
+                           TextColor superLeveledEnchantmentColor,
+                           Style enchantmentDescriptionStyle,
+                           int enchantmentDescriptionMaxWidth,
+                           Map<ResourceLocation, Client.AttributeColorRule> attributeColorRules,
+                           int generation) {
+
+        private static final String VANILLA_ENCHANTMENT_NAME_COLOR = "#AAAAAA";
+
+        static Snapshot fromConfig(int generation) {
+            return create(
+                    CLIENT.appendBlockInteractionRangeTooltip.get(),
+                    CLIENT.showUsabilityHint.get(),
+                    CLIENT.collapseEnchantmentTooltipsOnGear.get(),
+                    CLIENT.colorEnchantmentNames.get(),
+                    CLIENT.enchantmentNameColor.get(),
+                    CLIENT.superLeveledEnchantmentColor.get(),
+                    CLIENT.enchantmentDescriptionColor.get(),
+                    CLIENT.enchantmentDescriptionMaxWidth.get(),
+                    CLIENT.attributeColorOverrides.get(),
+                    generation
+            );
+        }
+
+        // Used until the config file has been loaded
+        static Snapshot defaults() {
+            return create(
+                    CLIENT.appendBlockInteractionRangeTooltip.getDefault(),
+                    CLIENT.showUsabilityHint.getDefault(),
+                    CLIENT.collapseEnchantmentTooltipsOnGear.getDefault(),
+                    CLIENT.colorEnchantmentNames.getDefault(),
+                    CLIENT.enchantmentNameColor.getDefault(),
+                    CLIENT.superLeveledEnchantmentColor.getDefault(),
+                    CLIENT.enchantmentDescriptionColor.getDefault(),
+                    CLIENT.enchantmentDescriptionMaxWidth.getDefault(),
+                    CLIENT.attributeColorOverrides.getDefault(),
+                    0
+            );
+        }
+
+        static Snapshot create(boolean appendBlockInteractionRangeTooltip, boolean showUsabilityHint,
+                               boolean collapseEnchantmentTooltipsOnGear, boolean colorEnchantmentNames,
+                               String enchantmentNameColor, String superLeveledEnchantmentColor,
+                               String enchantmentDescriptionColor, int enchantmentDescriptionMaxWidth,
+                               List<? extends String> attributeColorOverrides,
+                               int generation) {
+            TextColor nameColor = VANILLA_ENCHANTMENT_NAME_COLOR.equalsIgnoreCase(enchantmentNameColor)
+                    ? null
+                    : parseHexColor(enchantmentNameColor, VANILLA_ENCHANTMENT_NAME_COLOR);
+            return new Snapshot(
+                    appendBlockInteractionRangeTooltip,
+                    showUsabilityHint,
+                    collapseEnchantmentTooltipsOnGear,
+                    colorEnchantmentNames,
+                    nameColor,
+                    parseHexColor(superLeveledEnchantmentColor, CLIENT.superLeveledEnchantmentColor.getDefault()),
+                    Style.EMPTY
+                            .withColor(parseHexColor(enchantmentDescriptionColor, CLIENT.enchantmentDescriptionColor.getDefault()))
+                            .withItalic(true),
+                    enchantmentDescriptionMaxWidth,
+                    compileAttributeColorRules(attributeColorOverrides),
+                    generation
+            );
+        }
+
+        private static Map<ResourceLocation, Client.AttributeColorRule> compileAttributeColorRules(List<? extends String> ruleStrings) {
+            Map<ResourceLocation, Client.AttributeColorRule> rules = new HashMap<>();
+            for (String ruleStr : ruleStrings) {
+                Client.AttributeColorRule parsedRule = Client.parseRuleString(ruleStr);
+                if (parsedRule != null) {
+                    rules.put(parsedRule.attributeId(), parsedRule);
+                } else {
+                    DynamicTooltips.LOGGER.warn("Failed to parse attribute color rule from config: {}", ruleStr);
+                }
+            }
+            // Fully built before it is published, readers only ever see it through the volatile snapshot
+            return Map.copyOf(rules);
+        }
+    }
+
+    // Values are validated on load, the fallback only guards against hand-edited files slipping through
+    static TextColor parseHexColor(String hexColor, String fallback) {
+        String color = Client.validateHexColor(hexColor) ? hexColor : fallback;
+        return TextColor.fromRgb(Integer.parseInt(color.substring(1), 16));
+    }
+
 
     public static class Client {
         public final ModConfigSpec.BooleanValue appendBlockInteractionRangeTooltip;
         public final ModConfigSpec.BooleanValue showUsabilityHint;
         public final ModConfigSpec.BooleanValue collapseEnchantmentTooltipsOnGear;
         public final ModConfigSpec.ConfigValue<String> enchantmentDescriptionColor;
+        public final ModConfigSpec.IntValue enchantmentDescriptionMaxWidth;
         public final ModConfigSpec.ConfigValue<String> superLeveledEnchantmentColor;
         public final ModConfigSpec.BooleanValue colorEnchantmentNames;
         public final ModConfigSpec.ConfigValue<String> enchantmentNameColor;
@@ -63,6 +191,10 @@ public class DynamicTooltipsConfig {
                     .comment("Hex color code (#RRGGBB) for enchantment description text.")
                     .define("enchantmentDescriptionColor", "#808080", Client::validateHexColor);
 
+            enchantmentDescriptionMaxWidth = builder
+                    .comment("Maximum width in pixels of an enchantment description line before it wraps onto the next. 0 disables wrapping.")
+                    .defineInRange("enchantmentDescriptionMaxWidth", 200, 0, 1024);
+
             superLeveledEnchantmentColor = builder
                     .comment("Hex color code (#RRGGBB) for enchantments above their max level (excluding curses) if colorEnchantmentNames is true.")
                     .define("superLeveledEnchantmentColor", "#FF55FF", Client::validateHexColor);
@@ -95,7 +227,7 @@ public class DynamicTooltipsConfig {
 
         }
 
-        public record AttributeColorRule(ResourceLocation attributeId, ColorLogic logic, @Nullable ChatFormatting fixedColor, @Nullable String hexColor) {}
+        public record AttributeColorRule(ResourceLocation attributeId, ColorLogic logic, @Nullable TextColor fixedColor, @Nullable String hexColor) {}
 
         private static boolean validateHexColor(Object obj) {
             if (!(obj instanceof String str)) return false;
@@ -152,15 +284,16 @@ public class DynamicTooltipsConfig {
              }
 
              String hexColor = null;
+             TextColor fixedColor = null;
              if (parsedLogic == ColorLogic.FIXED) {
                  if (parts.length != 4) return null;
                  hexColor = parts[3];
                  if (!validateHexColor(hexColor)) return null;
-                 // We'll convert hex to ChatFormatting later in the handler
+                 fixedColor = TextColor.fromRgb(Integer.parseInt(hexColor.substring(1), 16));
              } else {
                  if (parts.length != 3) return null;
              }
-             return new AttributeColorRule(attributeId, parsedLogic, null, hexColor);
+             return new AttributeColorRule(attributeId, parsedLogic, fixedColor, hexColor);
         }
     }
 } 
\ No newline at end of file
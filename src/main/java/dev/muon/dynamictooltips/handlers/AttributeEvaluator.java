@@ -0,0 +1,91 @@
+package dev.muon.dynamictooltips.handlers;
+
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+
+import java.util.List;
+
+/**
+ * Folds attribute modifiers into per-operation accumulators in a single pass, in any order, and evaluates them
+ * against a base value. Modifiers are deduplicated by id like an attribute instance does, the first one wins.
+ * <p>
+ * {@link AttributeModifier.Operation#ADD_MULTIPLIED_BASE} scales the base value passed to {@link #evaluate}, not the
+ * base plus the added values, matching how these tooltips have always presented it.
+ */
+final class AttributeEvaluator {
+
+    private final ObjectOpenHashSet<ResourceLocation> ids;
+    private double add;
+    private double multipliedBase;
+    private double multipliedTotal = 1;
+
+    AttributeEvaluator() {
+        this.ids = new ObjectOpenHashSet<>();
+    }
+
+    private AttributeEvaluator(AttributeEvaluator other) {
+        this.ids = other.ids.clone();
+        this.add = other.add;
+        this.multipliedBase = other.multipliedBase;
+        this.multipliedTotal = other.multipliedTotal;
+    }
+
+    /**
+     * @return false if a modifier with the same id was already accepted, in which case it is ignored
+     */
+    boolean accept(AttributeModifier modifier) {
+        if (!ids.add(modifier.id())) {
+            return false;
+        }
+        switch (modifier.operation()) {
+            case ADD_VALUE -> add += modifier.amount();
+            case ADD_MULTIPLIED_BASE -> multipliedBase += modifier.amount();
+            case ADD_MULTIPLIED_TOTAL -> multipliedTotal *= 1.0 + modifier.amount();
+        }
+        return true;
+    }
+
+    AttributeEvaluator acceptAll(Iterable<AttributeModifier> modifiers) {
+        for (AttributeModifier modifier : modifiers) {
+            accept(modifier);
+        }
+        return this;
+    }
+
+    /**
+     * The value of {@code attribute} with the accepted modifiers applied to {@code baseValue}, clamped to the
+     * attribute's range.
+     */
+    double evaluate(Attribute attribute, double baseValue) {
+        return attribute.sanitizeValue((baseValue + add + baseValue * multipliedBase) * multipliedTotal);
+    }
+
+    /**
+     * Evaluates {@code modifiers} against {@code baseValue} in one pass without an evaluator. Unlike {@link #accept},
+     * every modifier counts, duplicate ids included, which is how a base attribute's merged children have always been
+     * summed.
+     */
+    static double evaluate(Attribute attribute, double baseValue, List<AttributeModifier> modifiers) {
+        double add = 0;
+        double multipliedBase = 0;
+        double multipliedTotal = 1;
+        for (int i = 0; i < modifiers.size(); i++) {
+            AttributeModifier modifier = modifiers.get(i);
+            switch (modifier.operation()) {
+                case ADD_VALUE -> add += modifier.amount();
+                case ADD_MULTIPLIED_BASE -> multipliedBase += modifier.amount();
+                case ADD_MULTIPLIED_TOTAL -> multipliedTotal *= 1.0 + modifier.amount();
+            }
+        }
+        return attribute.sanitizeValue((baseValue + add + baseValue * multipliedBase) * multipliedTotal);
+    }
+
+    /**
+     * An independent evaluator starting from this one's state, so shared totals can be extended per call.
+     */
+    AttributeEvaluator copy() {
+        return new AttributeEvaluator(this);
+    }
+}
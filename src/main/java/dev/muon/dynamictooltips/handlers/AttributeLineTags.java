@@ -0,0 +1,58 @@
+package dev.muon.dynamictooltips.handlers;
+
+import net.minecraft.network.chat.CommonComponents;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Identity-tracked record of the lines emitted by vanilla's ItemStack.addAttributeTooltips,
+ * so attribute sections can be found by reference instead of by flattening every line to a string.
+ */
+public class AttributeLineTags {
+
+    private final Map<Component, EquipmentSlotGroup> headers = new IdentityHashMap<>();
+    private final Set<Component> modifierLines = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Wraps the tooltip consumer handed to addAttributeTooltips, tagging every line that passes through it.
+     */
+    public Consumer<Component> wrap(Consumer<Component> consumer) {
+        return line -> {
+            tag(line);
+            consumer.accept(line);
+        };
+    }
+
+    private void tag(Component line) {
+        // The blank separator is a shared constant, never part of a section
+        if (line == CommonComponents.EMPTY) {
+            return;
+        }
+        EquipmentSlotGroup slot = AttributeTooltipHandler.getSlotFromKey(line);
+        if (slot != null) {
+            headers.put(line, slot);
+        } else {
+            modifierLines.add(line);
+        }
+    }
+
+    public boolean hasHeaders() {
+        return !headers.isEmpty();
+    }
+
+    @Nullable
+    public EquipmentSlotGroup getHeaderSlot(Component line) {
+        return headers.get(line);
+    }
+
+    public boolean isModifierLine(Component line) {
+        return modifierLines.contains(line);
+    }
+}
@@ -0,0 +1,111 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
+import dev.muon.dynamictooltips.config.DynamicTooltipsConfig.Client.AttributeColorRule;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.Util;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.item.Item;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-resolved per-attribute data for the merging pipeline, so the hot path never touches the attribute registry.
+ * The table is built on first use (after the built-in registries are frozen) and rebuilt when the config generation changes.
+ *
+ * @param id             the registry id, or null for unregistered attributes
+ * @param isBase         whether the attribute displays a base value (green, gold when merged)
+ * @param baseModifierId the id of the modifier carrying the item's base value, if any
+ * @param colorRule      the configured color override, if any
+ * @param sortRank       position of the attribute in registry id order, unregistered attributes sort last
+ * @param description    shared translatable name of the attribute
+ */
+public record AttributeMetadata(@Nullable ResourceLocation id,
+                                boolean isBase,
+                                @Nullable ResourceLocation baseModifierId,
+                                @Nullable AttributeColorRule colorRule,
+                                int sortRank,
+                                Component description) {
+
+    // Attributes that should be treated as "base" modifiers: Display a base value as green, gold when merged
+    private static final Set<ResourceLocation> BASE_ATTRIBUTE_IDS = Util.make(new HashSet<>(), set -> {
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_DAMAGE.value()));
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_SPEED.value()));
+        set.add(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ENTITY_INTERACTION_RANGE.value()));
+        set.add(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "damage"));
+        set.add(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "pull_time"));
+        set.remove(null);
+    });
+
+    // TODO: Can these be inferred safely?
+    private static final Map<ResourceLocation, ResourceLocation> BASE_MODIFIER_IDS = Util.make(new HashMap<>(), map -> {
+        map.put(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_DAMAGE.value()), Item.BASE_ATTACK_DAMAGE_ID);
+        map.put(BuiltInRegistries.ATTRIBUTE.getKey(Attributes.ATTACK_SPEED.value()), Item.BASE_ATTACK_SPEED_ID);
+        map.put(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "damage"), ResourceLocation.fromNamespaceAndPath("ranged_weapon", "base_damage"));
+        map.put(ResourceLocation.fromNamespaceAndPath("ranged_weapon", "pull_time"), ResourceLocation.fromNamespaceAndPath("ranged_weapon", "base_pull_time"));
+        map.remove(null);
+    });
+
+    private static volatile Table table = null;
+
+    public static AttributeMetadata of(Holder<Attribute> attribute) {
+        return of(attribute.value());
+    }
+
+    public static AttributeMetadata of(Attribute attribute) {
+        Table current = currentTable();
+        AttributeMetadata metadata = current.byAttribute.get(attribute);
+        if (metadata == null) {
+            // Not in the registry, resolve what we can without caching
+            metadata = new AttributeMetadata(null, false, null, null, Integer.MAX_VALUE, Component.translatable(attribute.getDescriptionId()));
+        }
+        return metadata;
+    }
+
+    private static Table currentTable() {
+        Table current = table;
+        // Read once so the rules and generation come from the same config state
+        DynamicTooltipsConfig.Snapshot config = DynamicTooltipsConfig.snapshot();
+        if (current == null || current.generation != config.generation()) {
+            current = buildTable(config.generation(), config.attributeColorRules());
+            table = current;
+        }
+        return current;
+    }
+
+    private static Table buildTable(int generation, Map<ResourceLocation, AttributeColorRule> colorRules) {
+
+        List<ResourceLocation> sortedIds = new ArrayList<>(BuiltInRegistries.ATTRIBUTE.keySet());
+        sortedIds.sort(null);
+
+        Map<Attribute, AttributeMetadata> byAttribute = new Reference2ObjectOpenHashMap<>(sortedIds.size());
+        for (int rank = 0; rank < sortedIds.size(); rank++) {
+            ResourceLocation id = sortedIds.get(rank);
+            Attribute attribute = BuiltInRegistries.ATTRIBUTE.get(id);
+            if (attribute == null) continue;
+
+            byAttribute.put(attribute, new AttributeMetadata(
+                    id,
+                    BASE_ATTRIBUTE_IDS.contains(id),
+                    BASE_MODIFIER_IDS.get(id),
+                    colorRules.get(id),
+                    rank,
+                    Component.translatable(attribute.getDescriptionId())
+            ));
+        }
+        return new Table(generation, byAttribute);
+    }
+
+    private record Table(int generation, Map<Attribute, AttributeMetadata> byAttribute) {}
+}
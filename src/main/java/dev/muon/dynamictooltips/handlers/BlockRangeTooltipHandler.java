@@ -1,10 +1,8 @@
 package dev.muon.dynamictooltips.handlers;
 
 import dev.muon.dynamictooltips.Keybindings;
+import dev.muon.dynamictooltips.compat.WeaponInfo;
 import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
-import net.bettercombat.api.WeaponAttributes;
-import net.bettercombat.logic.WeaponRegistry;
-import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.core.Holder;
@@ -12,7 +10,6 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.tags.ItemTags;
 import net.minecraft.world.entity.ai.attributes.Attribute;
-import net.minecraft.world.entity.ai.attributes.AttributeInstance;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
 import net.minecraft.world.entity.ai.attributes.Attributes;
 import net.minecraft.world.entity.player.Player;
@@ -22,27 +19,21 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.function.Consumer;
 import dev.muon.dynamictooltips.handlers.AttributeTooltipHandler.TooltipApplyResult;
-import java.util.stream.Collectors;
-import java.util.Set;
-import net.minecraft.world.entity.EquipmentSlot;
-import net.minecraft.resources.ResourceLocation;
 
 
 public class BlockRangeTooltipHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("DynamicTooltips-BlockRange");
-    private static final DecimalFormat FORMAT = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT));
     private static final Holder<Attribute> BLOCK_RANGE_ATTR_HOLDER = Attributes.BLOCK_INTERACTION_RANGE;
+    // Main-hand slot, including HAND and ANY modifiers, for both the equipped item taken out and the viewed item added
+    private static final PlayerRangeSnapshot.MainHand MAIN_HAND = PlayerRangeSnapshot.MainHand.SLOT;
 
-    public static void appendBlockRangeLines(ItemStack stack, Consumer<Component> tooltipConsumer, @Nullable Player player, TooltipApplyResult result) {
-        if (!DynamicTooltipsConfig.CLIENT.appendBlockInteractionRangeTooltip.get()) {
+    public static void appendBlockRangeLines(ItemStack stack, Consumer<Component> tooltipConsumer, @Nullable Player player, WeaponInfo weapon, TooltipApplyResult result) {
+        if (!DynamicTooltipsConfig.snapshot().appendBlockInteractionRangeTooltip()) {
             return;
         }
 
@@ -61,92 +52,42 @@ public class BlockRangeTooltipHandler {
             return;
         }
 
-        if (FabricLoader.getInstance().isModLoaded("bettercombat")) {
-            WeaponAttributes weaponAttributes = WeaponRegistry.getAttributes(stack);
-            if (weaponAttributes != null) {
-                return;
-            }
+        if (weapon.isWeapon()) {
+            return;
         }
 
-        AttributeInstance blockRangeInstance = localPlayer.getAttribute(BLOCK_RANGE_ATTR_HOLDER);
-        if (blockRangeInstance == null) {
+        PlayerRangeSnapshot.Range range = PlayerRangeSnapshot.get(localPlayer, BLOCK_RANGE_ATTR_HOLDER, MAIN_HAND);
+        if (range == null) {
             LOGGER.warn("Player {} missing attribute instance for {}", localPlayer.getName().getString(), BLOCK_RANGE_ATTR_HOLDER.value().getDescriptionId());
             return;
         }
 
-        // --- Calculate the hypothetical range if holding this item --- 
-        double baseValue = blockRangeInstance.getBaseValue();
-        List<AttributeModifier> relevantModifiers = new ArrayList<>();
+        // --- Calculate the hypothetical range if holding this item ---
+        // The snapshot already excludes the currently equipped mainhand item, only the viewed item needs adding
+        double baseValue = range.baseValue();
+        PlayerRangeSnapshot.Modifiers playerModifiers = range.withoutMainHand();
 
-        // Get all modifiers currently affecting the player
-        List<AttributeModifier> allCurrentModifiers = new ArrayList<>(blockRangeInstance.getModifiers());
-
-        // Get modifiers specifically from the item being viewed
-        List<AttributeModifier> viewedItemModifiers = new ArrayList<>();
-        stack.forEachModifier(EquipmentSlot.MAINHAND, (attrHolder, modifier) -> {
-            if (attrHolder == BLOCK_RANGE_ATTR_HOLDER) {
+        AttributeEvaluator evaluator = playerModifiers.evaluator();
+        List<AttributeModifier> viewedItemModifiers = new ArrayList<>(2);
+        MAIN_HAND.forEachModifier(stack, (attrHolder, modifier) -> {
+            if (attrHolder == BLOCK_RANGE_ATTR_HOLDER && modifier.amount() != 0 && evaluator.accept(modifier)) {
                 viewedItemModifiers.add(modifier);
             }
         });
 
-        // Get modifiers NOT from the currently equipped mainhand item
-        ItemStack equippedStack = localPlayer.getMainHandItem();
-        List<AttributeModifier> equippedItemModifiers = new ArrayList<>();
-        if (!equippedStack.isEmpty()) {
-            equippedStack.forEachModifier(EquipmentSlot.MAINHAND, (attrHolder, modifier) -> {
-                 if (attrHolder == BLOCK_RANGE_ATTR_HOLDER) {
-                     equippedItemModifiers.add(modifier);
-                 }
-            });
-        }
-        
-        Set<ResourceLocation> equippedIds = equippedItemModifiers.stream().map(AttributeModifier::id).collect(Collectors.toSet());
-        
-        // Add modifiers from the player instance that are NOT from the currently equipped mainhand item
-        for(AttributeModifier mod : allCurrentModifiers) {
-            if (!equippedIds.contains(mod.id())) {
-                 relevantModifiers.add(mod);
-            }
-        }
-
-        relevantModifiers.addAll(viewedItemModifiers);
-
-        relevantModifiers.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
-        double calculatedFinalValue = baseValue;
-        for (AttributeModifier modifier : relevantModifiers) {
-            if (modifier.operation() == AttributeModifier.Operation.ADD_VALUE) {
-                calculatedFinalValue += modifier.amount();
-            }
-        }
-        double valueToAddFromBase = 0;
-        for (AttributeModifier modifier : relevantModifiers) {
-            if (modifier.operation() == AttributeModifier.Operation.ADD_MULTIPLIED_BASE) {
-                valueToAddFromBase += baseValue * modifier.amount();
-            }
-        }
-        calculatedFinalValue += valueToAddFromBase;
-        for (AttributeModifier modifier : relevantModifiers) {
-             if (modifier.operation() == AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL) {
-                 calculatedFinalValue *= (1.0 + modifier.amount());
-             }
-        }
-        
-        double finalValue = calculatedFinalValue; 
+        double finalValue = evaluator.evaluate(BLOCK_RANGE_ATTR_HOLDER.value(), baseValue);
         boolean hasModifications = Math.abs(finalValue - baseValue) > 1e-4;
 
         result.needsShiftPrompt |= hasModifications;
 
         if (Keybindings.isDetailedView() && hasModifications) {
              tooltipConsumer.accept(createRangeLine(finalValue, true));
-             tooltipConsumer.accept(AttributeTooltipHandler.listHeader().append(createRangeLine(baseValue, false).withStyle(AttributeTooltipHandler.BASE_COLOR)));
-
-             List<AttributeModifier> sortedModifiers = relevantModifiers; // Already sorted
-             for (AttributeModifier modifier : sortedModifiers) {
-                 if (modifier.amount() != 0) { 
-                      tooltipConsumer.accept(AttributeTooltipHandler.listHeader().append(
-                           AttributeTooltipHandler.createModifierComponent(BLOCK_RANGE_ATTR_HOLDER.value(), modifier)
-                      ));
-                 }
+             tooltipConsumer.accept(TooltipComponents.listLine(createRangeLine(baseValue, false).withStyle(AttributeTooltipHandler.BASE_COLOR)));
+
+             for (AttributeModifier modifier : playerModifiers.with(viewedItemModifiers)) {
+                  tooltipConsumer.accept(TooltipComponents.listLine(
+                       AttributeTooltipHandler.createModifierComponent(BLOCK_RANGE_ATTR_HOLDER.value(), modifier)
+                  ));
              }
         } else {
              tooltipConsumer.accept(createRangeLine(finalValue, hasModifications));
@@ -158,8 +99,8 @@ public class BlockRangeTooltipHandler {
 
     private static MutableComponent createRangeLine(double value, boolean isModified) {
         MutableComponent text = Component.translatable("attribute.modifier.equals.0",
-                FORMAT.format(value),
-                Component.translatable(BLOCK_RANGE_ATTR_HOLDER.value().getDescriptionId()));
+                FixedPointFormat.format(value),
+                AttributeMetadata.of(BLOCK_RANGE_ATTR_HOLDER).description());
 
         ChatFormatting baseColor = isModified ? null : AttributeTooltipHandler.BASE_COLOR;
         Integer customColor = isModified ? AttributeTooltipHandler.MERGE_BASE_MODIFIER_COLOR : null;
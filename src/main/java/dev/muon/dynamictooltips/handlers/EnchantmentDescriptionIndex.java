@@ -0,0 +1,220 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.DynamicTooltips;
+import dev.muon.dynamictooltips.mixin.accessor.ClientLanguageAccessor;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.Util;
+import net.minecraft.client.resources.language.ClientLanguage;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.locale.Language;
+import net.minecraft.network.chat.contents.TranslatableContents;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Every description key in the loaded language, indexed by the prefix it extends (e.g.
+ * {@code enchantment.minecraft.sharpness.}), so a description is found with one map read instead of probing each
+ * key variant.
+ * <p>
+ * Enchantments are a synced registry and unknown while the languages load, so the index covers every key that looks
+ * like a description rather than only those of registered enchantments. It's built in the background after each
+ * language reload; until it's ready lookups fall back to probing the language directly.
+ */
+public final class EnchantmentDescriptionIndex {
+
+    @Nullable
+    private static volatile Index current;
+    @Nullable
+    private static volatile CompletableFuture<Index> pending;
+
+    private EnchantmentDescriptionIndex() {
+    }
+
+    /**
+     * Starts indexing the current language. Call once the languages have been reloaded.
+     */
+    public static void rebuild() {
+        current = null;
+        Language language = Language.getInstance();
+        if (!(language instanceof ClientLanguage)) {
+            // Replaced by another mod, keep probing it
+            pending = null;
+            return;
+        }
+        Map<String, String> storage = ((ClientLanguageAccessor) language).dynamicTooltips$getStorage();
+        pending = CompletableFuture.supplyAsync(() -> build(language, storage), Util.backgroundExecutor())
+                .whenComplete((index, error) -> {
+                    if (error != null) {
+                        DynamicTooltips.LOGGER.warn("Failed to index enchantment descriptions", error);
+                    } else if (Language.getInstance() == language) {
+                        current = index;
+                    }
+                });
+    }
+
+    /**
+     * @return the index of the current language, or null while it is still being built
+     */
+    @Nullable
+    static Index current() {
+        Index index = current;
+        return index != null && index.language == Language.getInstance() ? index : null;
+    }
+
+    /**
+     * Logs the registered enchantments that have no description once the index is ready.
+     */
+    public static void reportCoverage(RegistryAccess registries) {
+        CompletableFuture<Index> task = pending;
+        if (task == null) return;
+
+        // Read on this thread, the report itself runs wherever the index finishes
+        List<Described> enchantments = new ArrayList<>();
+        registries.registryOrThrow(Registries.ENCHANTMENT).entrySet().forEach(entry -> {
+            String descriptionKey = entry.getValue().description().getContents() instanceof TranslatableContents translatable
+                    ? translatable.getKey()
+                    : null;
+            enchantments.add(new Described(entry.getKey().location(), descriptionKey));
+        });
+
+        task.thenAccept(index -> {
+            List<ResourceLocation> missing = enchantments.stream()
+                    .filter(enchantment -> !index.covers(enchantment))
+                    .map(Described::id)
+                    .sorted(Comparator.comparing(ResourceLocation::toString))
+                    .toList();
+            if (missing.isEmpty()) {
+                DynamicTooltips.LOGGER.debug("All {} enchantments have descriptions", enchantments.size());
+            } else {
+                DynamicTooltips.LOGGER.info("{} of {} enchantments have no description: {}",
+                        missing.size(), enchantments.size(), missing);
+            }
+        });
+    }
+
+    private static Index build(Language language, Map<String, String> storage) {
+        long start = System.nanoTime();
+        // A parallel stream started from the background pool runs its work there too
+        Map<String, Entry> entries = storage.keySet().parallelStream()
+                .map(EnchantmentDescriptionIndex::parse)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingByConcurrent(Candidate::prefix))
+                .entrySet().parallelStream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> Entry.of(e.getValue())));
+        DynamicTooltips.LOGGER.debug("Indexed {} enchantment description prefixes in {} ms",
+                entries.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Index(language, entries);
+    }
+
+    // Splits "<prefix><type>" and "<prefix><type>.<level>" keys, anything else isn't a description
+    @Nullable
+    private static Candidate parse(String key) {
+        String rest = key;
+        int level = Candidate.NO_LEVEL;
+        int lastDot = rest.lastIndexOf('.');
+        if (lastDot < 0) return null;
+
+        String tail = rest.substring(lastDot + 1);
+        if (!tail.isEmpty() && tail.length() < 10 && tail.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            level = Integer.parseInt(tail);
+            // Only the exact spelling findTranslation would ask for
+            if (!tail.equals(Integer.toString(level))) return null;
+            rest = rest.substring(0, lastDot);
+            lastDot = rest.lastIndexOf('.');
+            if (lastDot < 0) return null;
+            tail = rest.substring(lastDot + 1);
+        }
+
+        for (int type = 0; type < EnchantmentTooltipHandler.KEY_TYPES.length; type++) {
+            if (EnchantmentTooltipHandler.KEY_TYPES[type].equals(tail)) {
+                return new Candidate(rest.substring(0, lastDot + 1), type, level, key);
+            }
+        }
+        return null;
+    }
+
+    static final class Index {
+        private final Language language;
+        private final Map<String, Entry> entries;
+
+        private Index(Language language, Map<String, Entry> entries) {
+            this.language = language;
+            this.entries = entries;
+        }
+
+        /**
+         * The key {@link EnchantmentTooltipHandler} would find by probing {@code prefix} for {@code level}.
+         */
+        @Nullable
+        String find(String prefix, int level) {
+            Entry entry = entries.get(prefix);
+            return entry != null ? entry.find(level) : null;
+        }
+
+        private boolean covers(Described enchantment) {
+            ResourceLocation id = enchantment.id();
+            return entries.containsKey("enchantment." + id.getNamespace() + "." + id.getPath() + ".")
+                    || (enchantment.descriptionKey() != null && entries.containsKey(enchantment.descriptionKey() + "."));
+        }
+    }
+
+    // Per key type, in probing order: the base key and the level-specific keys
+    private static final class Entry {
+        private final String[] baseKeys;
+        private final Int2ObjectMap<String>[] levelKeys;
+
+        @SuppressWarnings("unchecked")
+        private Entry() {
+            int types = EnchantmentTooltipHandler.KEY_TYPES.length;
+            this.baseKeys = new String[types];
+            this.levelKeys = new Int2ObjectMap[types];
+        }
+
+        static Entry of(List<Candidate> candidates) {
+            Entry entry = new Entry();
+            for (Candidate candidate : candidates) {
+                if (candidate.level() == Candidate.NO_LEVEL) {
+                    entry.baseKeys[candidate.type()] = candidate.key();
+                } else {
+                    if (entry.levelKeys[candidate.type()] == null) {
+                        entry.levelKeys[candidate.type()] = new Int2ObjectOpenHashMap<>();
+                    }
+                    entry.levelKeys[candidate.type()].put(candidate.level(), candidate.key());
+                }
+            }
+            return entry;
+        }
+
+        @Nullable
+        String find(int level) {
+            for (int type = 0; type < baseKeys.length; type++) {
+                if (baseKeys[type] != null) {
+                    return baseKeys[type];
+                }
+                if (levelKeys[type] != null) {
+                    String key = levelKeys[type].get(level);
+                    if (key != null) {
+                        return key;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Candidate(String prefix, int type, int level, String key) {
+        static final int NO_LEVEL = -1;
+    }
+
+    private record Described(ResourceLocation id, @Nullable String descriptionKey) {}
+}
@@ -1,13 +1,17 @@
 package dev.muon.dynamictooltips.handlers;
 
-import dev.muon.dynamictooltips.EnchantmentContext;
+import com.mojang.blaze3d.systems.RenderSystem;
 import dev.muon.dynamictooltips.Keybindings;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
 import net.minecraft.client.resources.language.I18n;
 import net.minecraft.core.Holder;
 import net.minecraft.core.component.DataComponents;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.FormattedText;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.contents.TranslatableContents;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.EnchantedBookItem;
 import net.minecraft.world.item.ItemStack;
@@ -15,52 +19,44 @@ import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.item.enchantment.ItemEnchantments;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
 
 public class EnchantmentTooltipHandler {
 
-    private static final String[] KEY_TYPES = {"desc", "description", "info"};
-    private static EnchantmentTooltipHandler instance;
+    // In probing order, shared with EnchantmentDescriptionIndex
+    static final String[] KEY_TYPES = {"desc", "description", "info"};
+    // Cached in place of a missing description, so misses aren't probed again
+    private static final Component NO_DESCRIPTION = Component.empty();
+    private static final String INDENT = " ";
+    private static final EnchantmentTooltipHandler INSTANCE = new EnchantmentTooltipHandler();
+
+    // Resolved descriptions per enchantment id and level, for the current language; cleared on resource reload.
+    // Concurrent since tooltips may be built off the render thread
+    private final Map<DescriptionKey, Component> descriptionCache = new ConcurrentHashMap<>();
+    // Descriptions already split to the configured width, so long ones are measured once rather than per tooltip
+    private final Map<WrapKey, List<Component>> wrappedCache = new ConcurrentHashMap<>();
 
     public static EnchantmentTooltipHandler getInstance() {
-        if (instance == null) {
-            instance = new EnchantmentTooltipHandler();
-        }
-        return instance;
+        return INSTANCE;
     }
 
     public EnchantmentTooltipHandler() {
     }
 
-    public void setupContext(ItemStack stack) {
-        if (shouldDisplayDescription(stack)) {
-            if (stack.getEnchantments() instanceof EnchantmentContext provider) {
-                provider.dynamictooltips$setStack(stack);
-            }
-            if (stack.get(DataComponents.STORED_ENCHANTMENTS) instanceof EnchantmentContext provider) {
-                provider.dynamictooltips$setStack(stack);
-            }
-        }
-    }
-
-    public void revertContext(ItemStack stack) {
-        if (stack.getEnchantments() instanceof EnchantmentContext provider) {
-            provider.dynamictooltips$setStack(ItemStack.EMPTY);
-        }
-        if (stack.get(DataComponents.STORED_ENCHANTMENTS) instanceof EnchantmentContext provider) {
-            provider.dynamictooltips$setStack(ItemStack.EMPTY);
-        }
-    }
-
     public static boolean hasEnchantments(ItemStack stack) {
         return !stack.getOrDefault(DataComponents.ENCHANTMENTS, ItemEnchantments.EMPTY).isEmpty() ||
                !stack.getOrDefault(DataComponents.STORED_ENCHANTMENTS, ItemEnchantments.EMPTY).isEmpty();
     }
 
     public static boolean itemHasExpandableEnchantments(ItemStack stack) {
-        return DynamicTooltipsConfig.CLIENT.collapseEnchantmentTooltipsOnGear.get() &&
+        return DynamicTooltipsConfig.snapshot().collapseEnchantmentTooltipsOnGear() &&
                hasEnchantments(stack) &&
                !(stack.getItem() instanceof EnchantedBookItem);
     }
@@ -72,29 +68,66 @@ public class EnchantmentTooltipHandler {
         if (stack.getItem() instanceof EnchantedBookItem) {
             return true;
         }
-        return !DynamicTooltipsConfig.CLIENT.collapseEnchantmentTooltipsOnGear.get() || Keybindings.isDetailedView();
+        return !DynamicTooltipsConfig.snapshot().collapseEnchantmentTooltipsOnGear() || Keybindings.isDetailedView();
+    }
+
+    public void clearCaches() {
+        descriptionCache.clear();
+        wrappedCache.clear();
     }
 
     public void insertDescriptions(Holder<Enchantment> enchantment, int level, Consumer<Component> lines) {
-        final Component description = getDescription(enchantment, enchantment.unwrapKey().orElseThrow().location(), level);
+        final Component description = getCachedDescription(enchantment, enchantment.unwrapKey().orElseThrow().location(), level);
         if (description != null) {
-            String hexColor = DynamicTooltipsConfig.CLIENT.enchantmentDescriptionColor.get();
-            int color = Integer.parseInt(hexColor.substring(1), 16);
-            Style descriptionStyle = Style.EMPTY
-                    .withColor(color)
-                    .withItalic(true);
+            DynamicTooltipsConfig.Snapshot snapshot = DynamicTooltipsConfig.snapshot();
+            Style descriptionStyle = snapshot.enchantmentDescriptionStyle();
+            int maxWidth = snapshot.enchantmentDescriptionMaxWidth();
+
+            // Font measurement isn't thread-safe, tooltips built elsewhere keep the description on one line
+            if (maxWidth > 0 && RenderSystem.isOnRenderThread()
+                    && description.getContents() instanceof TranslatableContents translatable) {
+                String language = Minecraft.getInstance().getLanguageManager().getSelected();
+                WrapKey key = new WrapKey(translatable.getKey(), language, maxWidth, descriptionStyle);
+                wrappedCache.computeIfAbsent(key, k -> wrap(description, k)).forEach(lines);
+                return;
+            }
 
             MutableComponent styledDescription = description.copy().withStyle(descriptionStyle);
+            lines.accept(Component.literal(INDENT).append(styledDescription));
+        }
+    }
 
-            lines.accept(Component.literal(" ").append(styledDescription));
+    private static List<Component> wrap(Component description, WrapKey key) {
+        Font font = Minecraft.getInstance().font;
+        List<FormattedText> split = font.getSplitter().splitLines(
+                description.copy().withStyle(key.style()), Math.max(1, key.width() - font.width(INDENT)), Style.EMPTY);
+
+        List<Component> wrapped = new ArrayList<>(split.size());
+        for (FormattedText text : split) {
+            MutableComponent line = Component.literal(INDENT);
+            text.visit((style, segment) -> {
+                line.append(Component.literal(segment).withStyle(style));
+                return Optional.empty();
+            }, Style.EMPTY);
+            wrapped.add(line);
         }
+        return List.copyOf(wrapped);
+    }
+
+    @Nullable
+    private Component getCachedDescription(Holder<Enchantment> enchantment, ResourceLocation id, int level) {
+        Component description = descriptionCache.computeIfAbsent(new DescriptionKey(id, level), key -> {
+            Component found = getDescription(enchantment, id, level);
+            return found != null ? found : NO_DESCRIPTION;
+        });
+        return description == NO_DESCRIPTION ? null : description;
     }
 
     @Nullable
     private Component getDescription(Holder<Enchantment> enchantment, ResourceLocation id, int level) {
         Component description = findTranslation("enchantment." + id.getNamespace() + "." + id.getPath() + ".", level);
 
-        if (description == null && enchantment.value().description().getContents() instanceof net.minecraft.network.chat.contents.TranslatableContents translatable) {
+        if (description == null && enchantment.value().description().getContents() instanceof TranslatableContents translatable) {
            description = findTranslation(translatable.getKey() + ".", level);
         }
         return description;
@@ -102,6 +135,11 @@ public class EnchantmentTooltipHandler {
 
     @Nullable
     private Component findTranslation(String baseKey, int level) {
+        EnchantmentDescriptionIndex.Index index = EnchantmentDescriptionIndex.current();
+        if (index != null) {
+            String key = index.find(baseKey, level);
+            return key != null ? Component.translatable(key) : null;
+        }
         for (String keyType : KEY_TYPES) {
             // Check for base key (e.g., enchantment.minecraft.sharpness.desc)
             String key = baseKey + keyType;
@@ -116,4 +154,8 @@ public class EnchantmentTooltipHandler {
         }
         return null;
     }
-} 
\ No newline at end of file
+
+    private record DescriptionKey(ResourceLocation id, int level) {}
+
+    private record WrapKey(String translationKey, String language, int width, Style style) {}
+}
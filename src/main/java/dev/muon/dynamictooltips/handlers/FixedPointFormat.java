@@ -0,0 +1,111 @@
+package dev.muon.dynamictooltips.handlers;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats tooltip numbers exactly like {@code new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT))}: at most
+ * two fraction digits without trailing zeros, no grouping, half-even rounding of the double's exact binary value, and
+ * {@code -0} for negative values that round to zero.
+ * <p>
+ * Rounds with integer arithmetic on the double's bits and writes the digits into a per-thread buffer, so the only
+ * allocation is the resulting string. Integers and halves up to {@value #CACHED_LIMIT} are handed out from a
+ * prebuilt table without allocating at all. Safe to call from any thread.
+ */
+final class FixedPointFormat {
+
+    private static final int CACHED_LIMIT = 256;
+    // Hundredths per cached step, i.e. halves
+    private static final int CACHED_STEP = 50;
+    // Below this a double's spacing is at most 0.01, where DecimalFormat's rounding of the shortest decimal
+    // representation always agrees with rounding the exact value. NaN and infinities also take the fallback
+    private static final double FAST_PATH_LIMIT = 0x1p46;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[24]);
+    private static final String[] POSITIVE = new String[CACHED_LIMIT * 100 / CACHED_STEP + 1];
+    private static final String[] NEGATIVE = new String[POSITIVE.length];
+    // Only for the rare values outside the fast path, guarded by itself
+    private static final DecimalFormat FALLBACK = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT));
+
+    static {
+        for (int i = 0; i < POSITIVE.length; i++) {
+            POSITIVE[i] = write((long) i * CACHED_STEP, false);
+            NEGATIVE[i] = write((long) i * CACHED_STEP, true);
+        }
+    }
+
+    private FixedPointFormat() {
+    }
+
+    static String format(double value) {
+        if (!(Math.abs(value) < FAST_PATH_LIMIT)) {
+            synchronized (FALLBACK) {
+                return FALLBACK.format(value);
+            }
+        }
+        // The sign bit, so -0.0 keeps its sign like it does with DecimalFormat
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long hundredths = roundToHundredths(Math.abs(value));
+        if (hundredths % CACHED_STEP == 0 && hundredths <= CACHED_LIMIT * 100L) {
+            int index = (int) (hundredths / CACHED_STEP);
+            return negative ? NEGATIVE[index] : POSITIVE[index];
+        }
+        return write(hundredths, negative);
+    }
+
+    /**
+     * {@code value * 100} rounded half-even, computed exactly: a finite double is {@code mantissa * 2^-shift}, and
+     * {@code mantissa * 100} still fits a long.
+     */
+    private static long roundToHundredths(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) (bits >>> 52);
+        long mantissa = bits & 0xFFFFFFFFFFFFFL;
+        if (exponent == 0) {
+            exponent = 1; // subnormal
+        } else {
+            mantissa |= 1L << 52;
+        }
+        int shift = 1075 - exponent;
+        long scaled = mantissa * 100;
+        if (shift <= 0) {
+            // An integer, the fast path limit keeps it well within a long
+            return scaled << -shift;
+        }
+        if (shift >= 62) {
+            // Below half a hundredth
+            return 0;
+        }
+        long quotient = scaled >>> shift;
+        long remainder = scaled & ((1L << shift) - 1);
+        long half = 1L << (shift - 1);
+        if (remainder > half || (remainder == half && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    private static String write(long hundredths, boolean negative) {
+        char[] buffer = BUFFER.get();
+        int pos = buffer.length;
+        long integer = hundredths / 100;
+        int fraction = (int) (hundredths % 100);
+
+        if (fraction != 0) {
+            if (fraction % 10 != 0) {
+                buffer[--pos] = (char) ('0' + fraction % 10);
+            }
+            buffer[--pos] = (char) ('0' + fraction / 10);
+            buffer[--pos] = '.';
+        }
+        do {
+            buffer[--pos] = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer != 0);
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return new String(buffer, pos, buffer.length - pos);
+    }
+}
@@ -0,0 +1,337 @@
+package dev.muon.dynamictooltips.handlers;
+
+import com.google.common.cache.CacheBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import net.minecraft.core.Holder;
+import net.minecraft.core.component.DataComponentPatch;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier.Operation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The player-independent part of an attribute tooltip: the slot group whose header is shown, the merged modifiers of
+ * base attributes with their children, and the remaining attributes in display order.
+ * <p>
+ * A stack's modifiers are read through {@link ItemStack#forEachModifier}, which other mods may extend with modifiers
+ * derived from any of the stack's components. Models are therefore cached by the item and its whole component patch,
+ * which together are everything the stack holds apart from its count, and stacks that are equal that way (a chest of
+ * identical swords) share one model. Only base values and text are left for the per-hover path.
+ *
+ * @param primaryGroup the slot group the merged section is shown under
+ * @param bases        base attributes in modifier order, children sorted by {@link AttributeTooltipHandler#ATTRIBUTE_MODIFIER_COMPARATOR}
+ * @param remaining    all other attributes in registry id order, already merged per operation
+ */
+record MergedAttributeModel(EquipmentSlotGroup primaryGroup, List<BaseEntry> bases, List<AttributeEntry> remaining) {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    // Slot groups in the order their section is preferred as the one the merged modifiers are shown under
+    static final List<EquipmentSlotGroup> PRIMARY_GROUP_PRIORITY = List.of(
+            EquipmentSlotGroup.HEAD, EquipmentSlotGroup.CHEST, EquipmentSlotGroup.LEGS, EquipmentSlotGroup.FEET, // Specific Armor
+            EquipmentSlotGroup.MAINHAND,
+            EquipmentSlotGroup.HAND,
+            EquipmentSlotGroup.ARMOR,
+            EquipmentSlotGroup.BODY
+    );
+
+    record BaseEntry(Holder<Attribute> attribute, AttributeModifier base, List<AttributeModifier> children) {}
+
+    /**
+     * @param lines     one line per operation with a non-zero total, in operation order
+     * @param anyMerged whether any operation combined several modifiers, even if they cancelled out
+     */
+    record AttributeEntry(Holder<Attribute> attribute, List<MergedLine> lines, boolean anyMerged) {}
+
+    /**
+     * @param display  the modifier shown on the line, a synthetic one carrying the total when merged
+     * @param merged   whether several modifiers were combined
+     * @param children the combined modifiers, sorted, empty unless merged
+     */
+    record MergedLine(AttributeModifier display, boolean merged, List<AttributeModifier> children) {}
+
+    // Bounded, as every damage value or rename of an item is a key of its own
+    private static final ConcurrentMap<Key, MergedAttributeModel> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(2048)
+            .<Key, MergedAttributeModel>build()
+            .asMap();
+
+    // The patch is copy-on-write, later changes to the stack don't reach a stored key
+    private record Key(Item item, DataComponentPatch patch, EquipmentSlotGroup initialPrimaryGroup) {}
+
+    boolean isEmpty() {
+        return bases.isEmpty() && remaining.isEmpty();
+    }
+
+    /**
+     * @param initialPrimaryGroup the highest-priority slot group among the stack's tooltip sections
+     */
+    static MergedAttributeModel of(ItemStack stack, EquipmentSlotGroup initialPrimaryGroup) {
+        Key key = new Key(stack.getItem(), stack.getComponentsPatch(), initialPrimaryGroup);
+        return CACHE.computeIfAbsent(key, k -> build(stack, initialPrimaryGroup));
+    }
+
+    /**
+     * The group processTooltip would pick from the stack's tooltip sections, derived from the modifiers directly for
+     * callers that have no tooltip. Vanilla emits a section for exactly the groups that have modifiers.
+     *
+     * @return the highest-priority group with modifiers, or null if none has any
+     */
+    @Nullable
+    static EquipmentSlotGroup initialPrimaryGroup(SlotModifierBuckets buckets) {
+        for (EquipmentSlotGroup group : PRIMARY_GROUP_PRIORITY) {
+            if (!buckets.get(group).isEmpty()) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Uncached model construction.
+     */
+    static MergedAttributeModel build(ItemStack stack, EquipmentSlotGroup initialPrimaryGroup) {
+        // One key set per build, reused by every exclusivity check below
+        ModifierKeySet keys = new ModifierKeySet();
+
+        // Each group is read from the stack once, however often it is consulted below
+        SlotModifierBuckets buckets = SlotModifierBuckets.of(stack);
+        SlotModifierBuckets.Bucket handMods = buckets.get(EquipmentSlotGroup.HAND);
+        SlotModifierBuckets.Bucket mainhandMods = buckets.get(EquipmentSlotGroup.MAINHAND);
+        SlotModifierBuckets.Bucket offhandMods = buckets.get(EquipmentSlotGroup.OFFHAND);
+
+        EquipmentSlotGroup finalPrimaryGroup = initialPrimaryGroup;
+
+        // === Re-evaluate primary group ===
+        if (initialPrimaryGroup == EquipmentSlotGroup.HAND) {
+            boolean mainhandHasExclusives = !mainhandMods.isEmpty() && containsExclusiveModifiers(keys, mainhandMods, handMods);
+            boolean offhandHasExclusives = !offhandMods.isEmpty() && containsExclusiveModifiers(keys, offhandMods, handMods);
+
+            if (mainhandHasExclusives) {
+                finalPrimaryGroup = EquipmentSlotGroup.MAINHAND;
+            } else if (offhandHasExclusives) {
+                finalPrimaryGroup = EquipmentSlotGroup.OFFHAND;
+            } else {
+                // No exclusives vs HAND, check if MAINHAND/OFFHAND match each other
+                if (!haveSameModifierKeys(keys, mainhandMods, offhandMods)) {
+                    // They differ, default to MAINHAND if it's not empty
+                    if (!mainhandMods.isEmpty()) {
+                        finalPrimaryGroup = EquipmentSlotGroup.MAINHAND;
+                    } else if (!offhandMods.isEmpty()) {
+                        // If mainhand is empty but offhand isn't, use offhand
+                        finalPrimaryGroup = EquipmentSlotGroup.OFFHAND;
+                    } // else: both empty or both match -> HAND remains primary
+                }
+            }
+        } // else: initialPrimary was MAINHAND or OFFHAND, keep it.
+
+        // === Combine Modifiers based on final primary group ===
+        SlotModifierBuckets.Bucket combinedModifiers = new SlotModifierBuckets.Bucket();
+        if (finalPrimaryGroup == EquipmentSlotGroup.HAND) {
+            combinedModifiers.addAll(handMods);
+            addNonDuplicateModifiers(keys, combinedModifiers, mainhandMods); // Merge mainhand (should be same as offhand)
+        } else if (finalPrimaryGroup == EquipmentSlotGroup.MAINHAND) {
+            combinedModifiers.addAll(mainhandMods);
+            addNonDuplicateModifiers(keys, combinedModifiers, handMods);
+        } else if (finalPrimaryGroup == EquipmentSlotGroup.OFFHAND) {
+            combinedModifiers.addAll(offhandMods);
+            addNonDuplicateModifiers(keys, combinedModifiers, handMods);
+        } else {
+            // For Armor/Body slots, start with their own modifiers
+            combinedModifiers.addAll(buckets.get(finalPrimaryGroup));
+        }
+
+        // === Handle Armor Merging ===
+        if (finalPrimaryGroup == EquipmentSlotGroup.HEAD ||
+                finalPrimaryGroup == EquipmentSlotGroup.CHEST ||
+                finalPrimaryGroup == EquipmentSlotGroup.LEGS ||
+                finalPrimaryGroup == EquipmentSlotGroup.FEET ||
+                finalPrimaryGroup == EquipmentSlotGroup.BODY) {
+            addNonDuplicateModifiers(keys, combinedModifiers, buckets.get(EquipmentSlotGroup.ARMOR));
+        }
+
+        return merge(finalPrimaryGroup, combinedModifiers);
+    }
+
+    private static final int NO_BASE = -1;
+    private static final int IS_BASE = -2;
+    private static final int DROPPED = -3;
+
+    /**
+     * Splits base modifiers (and the children merged into them) from the rest, fixes the display order and merges
+     * the remaining modifiers per operation. Works on flat arrays indexed like {@code modifiers}, with each entry's
+     * sort key packed up front, so no intermediate maps or boxed comparisons are needed.
+     */
+    @SuppressWarnings("unchecked")
+    static MergedAttributeModel merge(EquipmentSlotGroup primaryGroup, SlotModifierBuckets.Bucket modifiers) {
+        int size = modifiers.size();
+        // (attribute rank << 2 | operation ordinal), then the bits of -|amount| in signed-comparable form.
+        // Together with the id and entry index this reproduces ATTRIBUTE_MODIFIER_COMPARATOR within a stable sort
+        long[] groupKeys = new long[size];
+        long[] amountKeys = new long[size];
+        // Base slot an entry is a child of, or one of NO_BASE / IS_BASE / DROPPED
+        int[] baseOf = new int[size];
+        boolean[] baseAttribute = new boolean[size];
+
+        Holder<Attribute>[] baseAttributes = new Holder[size];
+        AttributeModifier[] baseModifiers = new AttributeModifier[size];
+        int baseCount = 0;
+
+        // Unregistered attributes all have the same sortRank, order them after the registry by first appearance
+        Attribute[] unregistered = new Attribute[size];
+        int unregisteredCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            Holder<Attribute> attribute = modifiers.attribute(i);
+            AttributeModifier modifier = modifiers.modifier(i);
+            AttributeMetadata metadata = AttributeMetadata.of(attribute);
+
+            long rank = metadata.sortRank();
+            if (rank == Integer.MAX_VALUE) {
+                int index = indexOf(unregistered, unregisteredCount, attribute.value());
+                if (index < 0) {
+                    index = unregisteredCount;
+                    unregistered[unregisteredCount++] = attribute.value();
+                }
+                rank += index;
+            }
+            groupKeys[i] = rank << 2 | modifier.operation().ordinal();
+            amountKeys[i] = sortableBits(-Math.abs(modifier.amount()));
+            baseAttribute[i] = metadata.isBase();
+
+            if (modifier.id().equals(metadata.baseModifierId())) {
+                // Position of the first base modifier, value of the last, as with a linked map
+                int slot = indexOf(baseAttributes, baseCount, attribute);
+                if (slot < 0) {
+                    slot = baseCount;
+                    baseAttributes[baseCount++] = attribute;
+                }
+                baseModifiers[slot] = modifier;
+                baseOf[i] = IS_BASE;
+            } else {
+                baseOf[i] = NO_BASE;
+            }
+        }
+
+        int[] order = new int[size];
+        int ordered = 0;
+        for (int i = 0; i < size; i++) {
+            if (baseOf[i] == IS_BASE) continue;
+            int slot = indexOf(baseAttributes, baseCount, modifiers.attribute(i));
+            if (slot >= 0) {
+                // Modifiers on an attribute that shows a base value merge into it, others on it aren't shown
+                baseOf[i] = baseAttribute[i] ? slot : DROPPED;
+                if (baseOf[i] == DROPPED) continue;
+            }
+            order[ordered++] = i;
+        }
+
+        IntArrays.quickSort(order, 0, ordered, (a, b) -> {
+            int c = Long.compare(groupKeys[a], groupKeys[b]);
+            if (c == 0) c = Long.compare(amountKeys[a], amountKeys[b]);
+            if (c == 0) c = modifiers.modifier(a).id().compareTo(modifiers.modifier(b).id());
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        // Base children, each slot's children are already in order within the global sort
+        List<BaseEntry> bases = new ArrayList<>(baseCount);
+        for (int slot = 0; slot < baseCount; slot++) {
+            List<AttributeModifier> children = new ArrayList<>();
+            for (int k = 0; k < ordered; k++) {
+                if (baseOf[order[k]] == slot) {
+                    children.add(modifiers.modifier(order[k]));
+                }
+            }
+            bases.add(new BaseEntry(baseAttributes[slot], baseModifiers[slot], List.copyOf(children)));
+        }
+
+        // Remaining attributes are contiguous runs in the sort, and within each the operations are too
+        List<AttributeEntry> remaining = new ArrayList<>();
+        int k = 0;
+        while (k < ordered) {
+            if (baseOf[order[k]] != NO_BASE) {
+                k++;
+                continue;
+            }
+            int first = order[k];
+            long attributeKey = groupKeys[first] >>> 2;
+            List<MergedLine> lines = new ArrayList<>(OPERATIONS.length);
+            boolean anyMerged = false;
+
+            while (k < ordered && groupKeys[order[k]] >>> 2 == attributeKey) {
+                int operation = (int) (groupKeys[order[k]] & 3);
+                List<AttributeModifier> children = new ArrayList<>();
+                double sum = 0;
+                for (; k < ordered && groupKeys[order[k]] >>> 2 == attributeKey && (groupKeys[order[k]] & 3) == operation; k++) {
+                    AttributeModifier modifier = modifiers.modifier(order[k]);
+                    if (modifier.amount() == 0) continue;
+                    sum += modifier.amount();
+                    children.add(modifier);
+                }
+                boolean merged = children.size() > 1;
+                // A merged operation still prompts for details even when its modifiers cancel out
+                anyMerged |= merged;
+                if (sum == 0) continue;
+
+                AttributeModifier display = merged
+                        ? new AttributeModifier(AttributeTooltipHandler.FAKE_MERGED_ID, sum, OPERATIONS[operation])
+                        : children.get(0);
+                lines.add(new MergedLine(display, merged, merged ? List.copyOf(children) : List.of()));
+            }
+            remaining.add(new AttributeEntry(modifiers.attribute(first), List.copyOf(lines), anyMerged));
+        }
+
+        return new MergedAttributeModel(primaryGroup, List.copyOf(bases), List.copyOf(remaining));
+    }
+
+    private static <T> int indexOf(T[] values, int count, T value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Signed-long view of a double that orders like Double.compare, with NaN last
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    // Helper to check if source map contains any modifier IDs not present in target map
+    private static boolean containsExclusiveModifiers(ModifierKeySet keys, SlotModifierBuckets.Bucket source, SlotModifierBuckets.Bucket target) {
+        keys.clear();
+        keys.addAll(target);
+        return !keys.containsAll(source);
+    }
+
+    // Helper to check if both maps carry exactly the same modifier IDs
+    private static boolean haveSameModifierKeys(ModifierKeySet keys, SlotModifierBuckets.Bucket first, SlotModifierBuckets.Bucket second) {
+        return !containsExclusiveModifiers(keys, first, second) && !containsExclusiveModifiers(keys, second, first);
+    }
+
+    private static void addNonDuplicateModifiers(
+            ModifierKeySet keys,
+            SlotModifierBuckets.Bucket target,
+            SlotModifierBuckets.Bucket source) {
+
+        keys.clear();
+        keys.addAll(target);
+
+        // Only checked against what target held before, same as merging one multimap into another
+        int sourceSize = source.size();
+        for (int i = 0; i < sourceSize; i++) {
+            if (!keys.contains(source.attribute(i), source.modifier(i).id())) {
+                target.add(source.attribute(i), source.modifier(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.muon.dynamictooltips.handlers;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of (attribute, modifier id) pairs. Attributes are compared by reference and ids by value,
+ * so no key objects or strings are built. Meant to be cleared and reused rather than reallocated.
+ */
+final class ModifierKeySet {
+
+    private Attribute[] attributes;
+    private ResourceLocation[] ids;
+    private int mask;
+    private int size;
+
+    ModifierKeySet() {
+        this(64);
+    }
+
+    ModifierKeySet(int expected) {
+        int capacity = HashCommon.arraySize(Math.max(expected, 4), 0.5F);
+        this.attributes = new Attribute[capacity];
+        this.ids = new ResourceLocation[capacity];
+        this.mask = capacity - 1;
+    }
+
+    boolean add(Holder<Attribute> attribute, ResourceLocation id) {
+        return add(attribute.value(), id);
+    }
+
+    private boolean add(Attribute attribute, ResourceLocation id) {
+        int slot = find(attribute, id);
+        if (attributes[slot] != null) {
+            return false;
+        }
+        attributes[slot] = attribute;
+        ids[slot] = id;
+        if (++size > (mask + 1) >> 1) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(Holder<Attribute> attribute, ResourceLocation id) {
+        Attribute value = attribute.value();
+        return attributes[find(value, id)] != null;
+    }
+
+    void addAll(SlotModifierBuckets.Bucket modifiers) {
+        for (int i = 0; i < modifiers.size(); i++) {
+            add(modifiers.attribute(i), modifiers.modifier(i).id());
+        }
+    }
+
+    boolean containsAll(SlotModifierBuckets.Bucket modifiers) {
+        for (int i = 0; i < modifiers.size(); i++) {
+            if (!contains(modifiers.attribute(i), modifiers.modifier(i).id())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(attributes, null);
+        Arrays.fill(ids, null);
+        size = 0;
+    }
+
+    // Returns the slot holding the pair, or the empty slot where it would be inserted
+    private int find(Attribute attribute, ResourceLocation id) {
+        int slot = hash(attribute, id) & mask;
+        Attribute current;
+        while ((current = attributes[slot]) != null) {
+            if (current == attribute && ids[slot].equals(id)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        Attribute[] oldAttributes = attributes;
+        ResourceLocation[] oldIds = ids;
+        int capacity = oldAttributes.length << 1;
+        attributes = new Attribute[capacity];
+        ids = new ResourceLocation[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldAttributes.length; i++) {
+            if (oldAttributes[i] != null) {
+                int slot = find(oldAttributes[i], oldIds[i]);
+                attributes[slot] = oldAttributes[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int hash(Attribute attribute, ResourceLocation id) {
+        return HashCommon.mix(System.identityHashCode(attribute) * 31 + id.hashCode());
+    }
+}
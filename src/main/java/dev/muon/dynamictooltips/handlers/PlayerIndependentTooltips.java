@@ -0,0 +1,94 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.DynamicTooltips;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.entity.ai.attributes.DefaultAttributes;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Merged tooltips for callers without a local player, such as recipe viewer ingredient lists and search indexes.
+ * Base values come from the player's default attributes, so the lines match what a player without any other
+ * equipment or effects would see. Range lines, which need a live player, are left out.
+ * <p>
+ * Safe to call from any thread; these callers often build their lists in the background.
+ */
+public final class PlayerIndependentTooltips {
+
+    // Only read through getBaseValue, which never creates instances, so sharing it between threads is safe
+    private static final AttributeMap DEFAULT_PLAYER_ATTRIBUTES = new AttributeMap(DefaultAttributes.getSupplier(EntityType.PLAYER));
+
+    private PlayerIndependentTooltips() {
+    }
+
+    public static AttributeTooltipHandler.ProcessingResult processTooltip(ItemStack stack, List<Component> tooltip, @Nullable AttributeLineTags tags) {
+        return AttributeTooltipHandler.processTooltip(stack, tooltip, null, DEFAULT_PLAYER_ATTRIBUTES, tags);
+    }
+
+    /**
+     * Builds the merge model of every registered item's default stack in parallel on {@code pool}, so a later full
+     * pass over the registry (e.g. a search index) only pays for text. Nothing in this mod calls it; it's meant for
+     * recipe viewers and search indexers, on a pool of their choosing.
+     * <p>
+     * Runs other mods' item code off the render thread. Items that throw are skipped and reported once in total.
+     *
+     * @return a task yielding the number of items that have a model
+     */
+    public static ForkJoinTask<Integer> precomputeModels(ForkJoinPool pool) {
+        List<Item> items = BuiltInRegistries.ITEM.stream().toList();
+        // A parallel stream started from inside the pool runs its work there too
+        return pool.submit(() -> {
+            long start = System.nanoTime();
+            Failures failures = new Failures();
+            int count = (int) items.parallelStream().filter(item -> precompute(item, failures)).count();
+            DynamicTooltips.LOGGER.debug("Precomputed tooltip models for {} of {} items in {} ms",
+                    count, items.size(), (System.nanoTime() - start) / 1_000_000);
+            failures.report();
+            return count;
+        });
+    }
+
+    private static boolean precompute(Item item, Failures failures) {
+        try {
+            ItemStack stack = item.getDefaultInstance();
+            EquipmentSlotGroup primaryGroup = MergedAttributeModel.initialPrimaryGroup(SlotModifierBuckets.of(stack));
+            return primaryGroup != null && !MergedAttributeModel.of(stack, primaryGroup).isEmpty();
+        } catch (RuntimeException e) {
+            failures.add(item, e);
+            return false;
+        }
+    }
+
+    // The first failure with its stack trace and a count, instead of one warning per broken item
+    private static final class Failures {
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicReference<Item> firstItem = new AtomicReference<>();
+        private final AtomicReference<RuntimeException> firstError = new AtomicReference<>();
+
+        void add(Item item, RuntimeException error) {
+            if (count.getAndIncrement() == 0) {
+                firstItem.set(item);
+                firstError.set(error);
+            }
+        }
+
+        void report() {
+            int failed = count.get();
+            if (failed > 0) {
+                DynamicTooltips.LOGGER.warn("Failed to build the tooltip model for {} item(s), first was {}",
+                        failed, BuiltInRegistries.ITEM.getKey(firstItem.get()), firstError.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.AttributeVersionTracker;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The local player's range attributes, resolved once and reused across hovers. Each range holds the player's current
+ * modifiers and the same set with the equipped main-hand item's contribution taken out, so a hypothetical
+ * "if held" value only needs the viewed item's modifiers folded in. Callers read the viewed item's modifiers through
+ * the same {@link MainHand} they pass here, so both sides agree on which of the item's modifiers count as held.
+ * <p>
+ * Rebuilt when the player's attribute map version changes (see {@link AttributeVersionTracker}) or the main-hand
+ * stack is swapped. Render thread only.
+ */
+final class PlayerRangeSnapshot {
+
+    private static int cachedVersion;
+    @Nullable
+    private static ItemStack cachedMainHand = null;
+    private static final Map<Attribute, Range> RANGES = new Reference2ObjectOpenHashMap<>();
+
+    private PlayerRangeSnapshot() {
+    }
+
+    /**
+     * @return the snapshot of the attribute, or null if the player doesn't have it
+     */
+    @Nullable
+    static Range get(Player player, Holder<Attribute> attribute, MainHand mainHandSlot) {
+        int version = ((AttributeVersionTracker) player.getAttributes()).dynamictooltips$getVersion();
+        ItemStack mainHand = player.getMainHandItem();
+        if (version != cachedVersion || mainHand != cachedMainHand) {
+            RANGES.clear();
+            cachedVersion = version;
+            cachedMainHand = mainHand;
+        }
+
+        Range range = RANGES.get(attribute.value());
+        if (range == null || range.mainHandSlot() != mainHandSlot) {
+            AttributeInstance instance = player.getAttribute(attribute);
+            if (instance == null) {
+                return null;
+            }
+            range = Range.of(instance, mainHand, attribute, mainHandSlot);
+            RANGES.put(attribute.value(), range);
+        }
+        return range;
+    }
+
+    /**
+     * @param baseValue       the attribute's base value on the player
+     * @param current         every modifier currently applied to the player
+     * @param withoutMainHand the current modifiers minus those supplied by the equipped main-hand item
+     * @param mainHandSlot    which of the main-hand item's modifiers were taken out
+     */
+    record Range(double baseValue, Modifiers current, Modifiers withoutMainHand, MainHand mainHandSlot) {
+
+        private static Range of(AttributeInstance instance, ItemStack mainHand, Holder<Attribute> attribute, MainHand mainHandSlot) {
+            Set<ResourceLocation> mainHandIds = new HashSet<>();
+            if (!mainHand.isEmpty()) {
+                mainHandSlot.forEachModifier(mainHand, (holder, modifier) -> {
+                    if (holder.value() == attribute.value()) {
+                        mainHandIds.add(modifier.id());
+                    }
+                });
+            }
+
+            List<AttributeModifier> current = new ArrayList<>(instance.getModifiers());
+            List<AttributeModifier> withoutMainHand = new ArrayList<>(current.size());
+            for (AttributeModifier modifier : current) {
+                if (!mainHandIds.contains(modifier.id())) {
+                    withoutMainHand.add(modifier);
+                }
+            }
+            return new Range(instance.getBaseValue(), Modifiers.of(current), Modifiers.of(withoutMainHand), mainHandSlot);
+        }
+    }
+
+    /**
+     * The two {@code ItemStack.forEachModifier} overloads for the main hand. The slot one also includes modifiers for
+     * the {@code HAND} and {@code ANY} groups, the group one only those for {@code MAINHAND} exactly.
+     */
+    enum MainHand {
+        SLOT {
+            @Override
+            void forEachModifier(ItemStack stack, BiConsumer<Holder<Attribute>, AttributeModifier> action) {
+                stack.forEachModifier(EquipmentSlot.MAINHAND, action);
+            }
+        },
+        GROUP {
+            @Override
+            void forEachModifier(ItemStack stack, BiConsumer<Holder<Attribute>, AttributeModifier> action) {
+                stack.forEachModifier(EquipmentSlotGroup.MAINHAND, action);
+            }
+        };
+
+        abstract void forEachModifier(ItemStack stack, BiConsumer<Holder<Attribute>, AttributeModifier> action);
+    }
+
+    /**
+     * An immutable, sorted modifier list with its per-operation totals pre-folded. Zero-amount modifiers are
+     * dropped, they neither change the value nor get displayed.
+     */
+    static final class Modifiers {
+        private final List<AttributeModifier> sorted;
+        private final AttributeEvaluator totals;
+
+        private Modifiers(List<AttributeModifier> sorted, AttributeEvaluator totals) {
+            this.sorted = sorted;
+            this.totals = totals;
+        }
+
+        private static Modifiers of(List<AttributeModifier> modifiers) {
+            List<AttributeModifier> sorted = new ArrayList<>(modifiers.size());
+            AttributeEvaluator totals = new AttributeEvaluator();
+            for (AttributeModifier modifier : modifiers) {
+                if (modifier.amount() != 0 && totals.accept(modifier)) {
+                    sorted.add(modifier);
+                }
+            }
+            sorted.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+            return new Modifiers(List.copyOf(sorted), totals);
+        }
+
+        List<AttributeModifier> sorted() {
+            return sorted;
+        }
+
+        boolean isEmpty() {
+            return sorted.isEmpty();
+        }
+
+        /**
+         * The attribute value with these modifiers applied to {@code baseValue}.
+         */
+        double evaluate(Attribute attribute, double baseValue) {
+            return totals.evaluate(attribute, baseValue);
+        }
+
+        /**
+         * A fresh evaluator holding these modifiers, for folding in another item's before evaluating.
+         */
+        AttributeEvaluator evaluator() {
+            return totals.copy();
+        }
+
+        /**
+         * These modifiers merged with {@code extra}, sorted for display.
+         */
+        List<AttributeModifier> with(List<AttributeModifier> extra) {
+            if (extra.isEmpty()) {
+                return sorted;
+            }
+            List<AttributeModifier> merged = new ArrayList<>(sorted.size() + extra.size());
+            merged.addAll(sorted);
+            merged.addAll(extra);
+            merged.sort(AttributeTooltipHandler.ATTRIBUTE_MODIFIER_COMPARATOR);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.muon.dynamictooltips.handlers;
+
+import net.minecraft.core.Holder;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+/**
+ * A stack's attribute modifiers grouped by slot group, each group read through
+ * {@link ItemStack#forEachModifier(EquipmentSlotGroup, java.util.function.BiConsumer)} the first time it's asked for
+ * and kept, so every later read of the group is free. Going through the public method keeps modifiers that other
+ * mods add or change there, and keeps its order: the item's modifiers first, then those granted by enchantments.
+ */
+final class SlotModifierBuckets {
+
+    private final ItemStack stack;
+    private final EnumMap<EquipmentSlotGroup, Bucket> buckets = new EnumMap<>(EquipmentSlotGroup.class);
+
+    private SlotModifierBuckets(ItemStack stack) {
+        this.stack = stack;
+    }
+
+    static SlotModifierBuckets of(ItemStack stack) {
+        return new SlotModifierBuckets(stack);
+    }
+
+    /**
+     * @return the group's modifiers, empty if it has none
+     */
+    Bucket get(EquipmentSlotGroup group) {
+        Bucket bucket = buckets.get(group);
+        if (bucket == null) {
+            Bucket read = new Bucket();
+            stack.forEachModifier(group, (attribute, modifier) -> {
+                if (attribute != null && modifier != null) {
+                    read.add(attribute, modifier);
+                }
+            });
+            bucket = read.isEmpty() ? Bucket.EMPTY : read;
+            buckets.put(group, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Parallel arrays of (attribute, modifier) pairs in insertion order.
+     */
+    static final class Bucket {
+        static final Bucket EMPTY = new Bucket(0);
+
+        private Holder<Attribute>[] attributes;
+        private AttributeModifier[] modifiers;
+        private int size;
+
+        Bucket() {
+            this(8);
+        }
+
+        @SuppressWarnings("unchecked")
+        Bucket(int capacity) {
+            this.attributes = new Holder[capacity];
+            this.modifiers = new AttributeModifier[capacity];
+        }
+
+        void add(Holder<Attribute> attribute, AttributeModifier modifier) {
+            if (size == attributes.length) {
+                int capacity = Math.max(8, size << 1);
+                attributes = Arrays.copyOf(attributes, capacity);
+                modifiers = Arrays.copyOf(modifiers, capacity);
+            }
+            attributes[size] = attribute;
+            modifiers[size] = modifier;
+            size++;
+        }
+
+        void addAll(Bucket other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.attributes[i], other.modifiers[i]);
+            }
+        }
+
+        Holder<Attribute> attribute(int index) {
+            return attributes[index];
+        }
+
+        AttributeModifier modifier(int index) {
+            return modifiers[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
+import dev.muon.dynamictooltips.Keybindings;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.function.Consumer;
+
+/**
+ * State of a single ItemStack.getTooltipLines call, created when it starts and shared between this mod's injections
+ * into it. Kept off shared objects and statics so overlapping calls can't see each other's state.
+ * <p>
+ * This doesn't make the whole pipeline thread-safe: the tooltip cache and the player's range snapshot are render
+ * thread only, calls from other threads take the {@link PlayerIndependentTooltips} path instead.
+ */
+public final class TooltipBuildContext {
+
+    private final ItemStack stack;
+    private boolean promptAdded = false;
+
+    public TooltipBuildContext(ItemStack stack) {
+        this.stack = stack;
+    }
+
+    public ItemStack stack() {
+        return stack;
+    }
+
+    /**
+     * Adds the expand prompt unless this tooltip already has it, and only while it applies: hints enabled and the
+     * detailed view not shown.
+     */
+    public void addExpandPrompt(Consumer<Component> lines) {
+        if (promptAdded || !DynamicTooltipsConfig.snapshot().showUsabilityHint() || Keybindings.isDetailedView()) {
+            return;
+        }
+        lines.accept(TooltipPromptHandler.getExpandPrompt());
+        promptAdded = true;
+    }
+
+    /**
+     * The consumer to hand to an enchantment component's addToTooltip: marked so the description injectors insert
+     * descriptions into it when they should be shown for this stack, the given one otherwise.
+     */
+    public Consumer<Component> enchantmentLines(Consumer<Component> lines) {
+        return EnchantmentTooltipHandler.getInstance().shouldDisplayDescription(stack) ? new DescribedEnchantmentLines(lines) : lines;
+    }
+
+    /**
+     * Tooltip consumer that asks for enchantment descriptions to be inserted after each enchantment's line.
+     */
+    public record DescribedEnchantmentLines(Consumer<Component> delegate) implements Consumer<Component> {
+        @Override
+        public void accept(Component line) {
+            delegate.accept(line);
+        }
+    }
+}
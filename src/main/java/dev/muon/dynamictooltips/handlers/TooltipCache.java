@@ -0,0 +1,235 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.AttributeVersionTracker;
+import dev.muon.dynamictooltips.Keybindings;
+import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.TooltipFlag;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of processed tooltips, so hovering an unchanged stack skips attribute merging entirely.
+ * Entries are keyed by the stack's item and components, the player's attribute and inventory versions and the
+ * config generation; any change to those produces a new key.
+ * <p>
+ * Each entry holds a collapsed and an expanded variant. Both are built from the same cached merge model, the
+ * expanded one only once the show-details key is first pressed over the stack. Toggling the key afterwards swaps
+ * between the two without rebuilding either.
+ * <p>
+ * Lines the pipeline added are stored as built, translations and all, so other mods and header detection still see
+ * their contents. They're never mutated after processing, and the same instances are handed out on every hit, so
+ * the renderer's per-instance visual order cache stays warm. The expand prompt names the bound key, so it is never
+ * stored; only whether it should follow the lines is.
+ * <p>
+ * Vanilla and other mods' lines are not stored. A variant records where each of them goes in the output, and every
+ * hit fills those positions with the current call's lines, so they stay live. A hit also needs the same lines as the
+ * call it was built from, compared by their combined hash, since another mod may add lines that depend on state the
+ * key doesn't cover. Render thread only, apart from the hit counters.
+ */
+public class TooltipCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<>(MAX_ENTRIES, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // Read by the profiler report, which may run elsewhere
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * Returns the processed lines for this key with {@code input}'s lines in place, or null if nothing is cached or
+     * {@code input} doesn't have the same lines as the call the cached result was built from.
+     */
+    @Nullable
+    public static Cached get(Key key, List<Component> input) {
+        Entry entry = CACHE.get(key);
+        Variant variant = entry == null ? null : entry.get(key.detailedView);
+        if (variant == null || variant.inputSize != input.size() || variant.inputHash != input.hashCode()) {
+            MISSES.increment();
+            return null;
+        }
+        HITS.increment();
+        return new Cached(variant.fill(input), variant.needsShiftPrompt);
+    }
+
+    /**
+     * Stores the variant for the key's detailed view state, keeping the other variant of the entry if present.
+     */
+    public static void put(Key key, List<Component> input, List<Component> output, boolean needsShiftPrompt) {
+        Entry entry = CACHE.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            CACHE.put(key.detach(), entry);
+        }
+        entry.set(key.detailedView, Variant.of(input, output, needsShiftPrompt));
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    public static final class Key {
+        private final ItemStack stack;
+        // Selects the variant within an entry, not part of the key's identity
+        private final boolean detailedView;
+        private final boolean advanced;
+        private final boolean creative;
+        private final int attributeVersion;
+        private final int inventoryVersion;
+        private final int selectedSlot;
+        private final int configGeneration;
+        private final int hash;
+
+        private Key(ItemStack stack, boolean detailedView, boolean advanced, boolean creative,
+                    int attributeVersion, int inventoryVersion, int selectedSlot, int configGeneration) {
+            this.stack = stack;
+            this.detailedView = detailedView;
+            this.advanced = advanced;
+            this.creative = creative;
+            this.attributeVersion = attributeVersion;
+            this.inventoryVersion = inventoryVersion;
+            this.selectedSlot = selectedSlot;
+            this.configGeneration = configGeneration;
+
+            int h = ItemStack.hashItemAndComponents(stack);
+            h = 31 * h + Boolean.hashCode(advanced);
+            h = 31 * h + Boolean.hashCode(creative);
+            h = 31 * h + attributeVersion;
+            h = 31 * h + inventoryVersion;
+            h = 31 * h + selectedSlot;
+            h = 31 * h + configGeneration;
+            this.hash = h;
+        }
+
+        public static Key of(ItemStack stack, Player player, TooltipFlag flag) {
+            return new Key(stack,
+                    Keybindings.isDetailedView(),
+                    flag.isAdvanced(),
+                    flag.isCreative(),
+                    ((AttributeVersionTracker) player.getAttributes()).dynamictooltips$getVersion(),
+                    player.getInventory().getTimesChanged(),
+                    player.getInventory().selected,
+                    DynamicTooltipsConfig.generation());
+        }
+
+        // Lookups use the live stack, stored keys need their own copy so later mutations can't corrupt them
+        private Key detach() {
+            return new Key(stack.copyWithCount(1), detailedView, advanced, creative,
+                    attributeVersion, inventoryVersion, selectedSlot, configGeneration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return hash == other.hash
+                    && advanced == other.advanced
+                    && creative == other.creative
+                    && attributeVersion == other.attributeVersion
+                    && inventoryVersion == other.inventoryVersion
+                    && selectedSlot == other.selectedSlot
+                    && configGeneration == other.configGeneration
+                    && ItemStack.isSameItemSameComponents(stack, other.stack);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        @Nullable
+        private Variant collapsed;
+        @Nullable
+        private Variant expanded;
+
+        @Nullable
+        Variant get(boolean detailedView) {
+            return detailedView ? expanded : collapsed;
+        }
+
+        void set(boolean detailedView, Variant variant) {
+            if (detailedView) {
+                expanded = variant;
+            } else {
+                collapsed = variant;
+            }
+        }
+    }
+
+    /**
+     * @param lines            the processed lines, to be shown as-is
+     * @param needsShiftPrompt whether the expand prompt should be appended after them
+     */
+    public record Cached(List<Component> lines, boolean needsShiftPrompt) {}
+
+    /**
+     * One processed result. {@code sources[i]} is the index of the input line shown at position {@code i}, or -1 for
+     * a line the pipeline added, stored in {@code added[i]}. Components hash their contents, style and siblings, so
+     * {@code inputHash} changes with any line's text or arguments without resolving a translation.
+     */
+    private record Variant(int inputSize, int inputHash, Component[] added, int[] sources, boolean needsShiftPrompt) {
+
+        static Variant of(List<Component> input, List<Component> output, boolean needsShiftPrompt) {
+            Set<Component> vanilla = new ReferenceOpenHashSet<>(input);
+            Component[] added = new Component[output.size()];
+            int[] sources = new int[output.size()];
+            // Kept lines stay in their original order, so each is found by scanning on from the previous one
+            int cursor = 0;
+            for (int i = 0; i < output.size(); i++) {
+                Component line = output.get(i);
+                if (!vanilla.contains(line)) {
+                    added[i] = line;
+                    sources[i] = -1;
+                    continue;
+                }
+                int source = indexOf(input, line, cursor);
+                if (source < 0) {
+                    source = indexOf(input, line, 0);
+                }
+                sources[i] = source;
+                cursor = source + 1;
+            }
+            return new Variant(input.size(), input.hashCode(), added, sources, needsShiftPrompt);
+        }
+
+        private static int indexOf(List<Component> lines, Component line, int from) {
+            for (int i = from; i < lines.size(); i++) {
+                if (lines.get(i) == line) return i;
+            }
+            return -1;
+        }
+
+        List<Component> fill(List<Component> input) {
+            List<Component> lines = new ArrayList<>(sources.length);
+            for (int i = 0; i < sources.length; i++) {
+                lines.add(sources[i] < 0 ? added[i] : input.get(sources[i]));
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.muon.dynamictooltips.handlers;
+
+import com.mojang.blaze3d.platform.InputConstants;
+import dev.muon.dynamictooltips.Keybindings;
+import dev.muon.dynamictooltips.mixin.accessor.KeyMappingAccessor;
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prebuilt constant components added to tooltips. Lines that go into a tooltip directly are handed out as copies,
+ * since other mods may restyle tooltip lines in place; the list marker is only ever appended to a new line and is
+ * shared as-is.
+ * <p>
+ * Rebuilt when the language is reloaded, and the expand prompt also when the show-details key is rebound. Every
+ * piece of state is published whole through a volatile field, so it can be read from any thread; the enchantment
+ * prompt is also added to tooltips built off the render thread.
+ */
+public final class TooltipComponents {
+
+    private static final Style PROMPT_STYLE = Style.EMPTY.withColor(ChatFormatting.DARK_GRAY).withItalic(false);
+
+    private static volatile Pool pool = Pool.create();
+
+    private TooltipComponents() {
+    }
+
+    public static void rebuild() {
+        pool = Pool.create();
+    }
+
+    /**
+     * A detail line: the list marker followed by {@code line}, which inherits the marker's gray where unstyled.
+     */
+    public static MutableComponent listLine(Component line) {
+        return Component.empty().withStyle(ChatFormatting.GRAY).append(pool.listMarker).append(line);
+    }
+
+    public static Component slotHeader(EquipmentSlotGroup group) {
+        return pool.slotHeaders.get(group).copy();
+    }
+
+    public static Component twoHanded() {
+        return pool.twoHanded.copy();
+    }
+
+    public static Component expandPrompt() {
+        Pool current = pool;
+        InputConstants.Key key = ((KeyMappingAccessor) (Object) Keybindings.SHOW_DETAILS_KEY).dynamicTooltips$getKey();
+        Prompt prompt = current.expandPrompt;
+        if (prompt == null || prompt.key() != key) {
+            // Racing threads may each build one, any of them is correct
+            prompt = new Prompt(key, createExpandPrompt());
+            current.expandPrompt = prompt;
+        }
+        return prompt.component().copy();
+    }
+
+    private static Component createExpandPrompt() {
+        MutableComponent keyName = Keybindings.SHOW_DETAILS_KEY.getTranslatedKeyMessage().copy();
+        keyName.withStyle(PROMPT_STYLE);
+
+        return Component.empty()
+                .append(Component.literal("[").withStyle(PROMPT_STYLE))
+                .append(keyName)
+                .append(Component.literal("]").withStyle(PROMPT_STYLE))
+                .append(Component.translatable("tooltip.dynamictooltips.expand_text_part")
+                        .withStyle(Style.EMPTY.withColor(ChatFormatting.DARK_GRAY).withItalic(true)));
+    }
+
+    private static final class Pool {
+        final Component listMarker;
+        final Map<EquipmentSlotGroup, Component> slotHeaders;
+        final Component twoHanded;
+        // Built on first use, the key mapping isn't registered yet when the pool is first created
+        @Nullable
+        volatile Prompt expandPrompt;
+
+        private Pool(Component listMarker, Map<EquipmentSlotGroup, Component> slotHeaders, Component twoHanded) {
+            this.listMarker = listMarker;
+            this.slotHeaders = slotHeaders;
+            this.twoHanded = twoHanded;
+        }
+
+        static Pool create() {
+            Map<EquipmentSlotGroup, Component> slotHeaders = new EnumMap<>(EquipmentSlotGroup.class);
+            for (EquipmentSlotGroup group : EquipmentSlotGroup.values()) {
+                String key = "item.modifiers." + group.name().toLowerCase(Locale.ROOT);
+                slotHeaders.put(group, Component.translatable(key).withStyle(ChatFormatting.GRAY));
+            }
+            return new Pool(
+                    Component.literal(" \u2507 "),
+                    slotHeaders,
+                    Component.translatable("item.held.two_handed").withStyle(ChatFormatting.GRAY));
+        }
+    }
+
+    // The prompt together with the key it names, replaced as a whole
+    private record Prompt(InputConstants.Key key, Component component) {}
+}
@@ -0,0 +1,33 @@
+package dev.muon.dynamictooltips.mixin;
+
+import dev.muon.dynamictooltips.AttributeVersionTracker;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Mixin(AttributeMap.class)
+public class AttributeMapMixin implements AttributeVersionTracker {
+
+    // Shared across all maps, so a freshly created map (e.g. after respawning) never reuses an old version
+    @Unique
+    private static final AtomicInteger dynamictooltips$VERSIONS = new AtomicInteger();
+
+    @Unique
+    private int dynamictooltips$version = dynamictooltips$VERSIONS.incrementAndGet();
+
+    @Override
+    public int dynamictooltips$getVersion() {
+        return this.dynamictooltips$version;
+    }
+
+    @Inject(method = "onAttributeModified", at = @At("HEAD"))
+    private void dynamictooltips$bumpVersion(AttributeInstance instance, CallbackInfo ci) {
+        this.dynamictooltips$version = dynamictooltips$VERSIONS.incrementAndGet();
+    }
+}
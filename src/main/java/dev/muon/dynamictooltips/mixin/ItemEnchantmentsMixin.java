@@ -1,12 +1,12 @@
 package dev.muon.dynamictooltips.mixin;
 
 import com.llamalad7.mixinextras.sugar.Local;
-import dev.muon.dynamictooltips.EnchantmentContext;
+import dev.muon.dynamictooltips.TooltipProfiler;
 import dev.muon.dynamictooltips.handlers.EnchantmentTooltipHandler;
+import dev.muon.dynamictooltips.handlers.TooltipBuildContext;
 import net.minecraft.core.Holder;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.TooltipFlag;
 import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.item.enchantment.ItemEnchantments;
@@ -20,29 +20,17 @@ import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.util.function.Consumer;
 
 @Mixin(ItemEnchantments.class)
-public class ItemEnchantmentsMixin implements EnchantmentContext {
-
-    @Unique
-    private ItemStack dynamictooltips$heldStack = ItemStack.EMPTY;
-
-    @Override
-    public ItemStack dynamictooltips$getStack() {
-        return this.dynamictooltips$heldStack;
-    }
-
-    @Override
-    public void dynamictooltips$setStack(ItemStack stack) {
-        this.dynamictooltips$heldStack = stack;
-    }
+public class ItemEnchantmentsMixin {
 
+    // ItemStackMixin hands in a DescribedEnchantmentLines consumer when the stack being described should show descriptions
     @Inject(
             method = "addToTooltip(Lnet/minecraft/world/item/Item$TooltipContext;Ljava/util/function/Consumer;Lnet/minecraft/world/item/TooltipFlag;)V",
             at = @At(value = "INVOKE", target = "Ljava/util/function/Consumer;accept(Ljava/lang/Object;)V", ordinal = 0, shift = At.Shift.AFTER)
     )
     private void dynamictooltips$addDescriptionSorted(Item.TooltipContext context, Consumer<Component> tooltipConsumer, TooltipFlag flag, CallbackInfo ci,
                                                       @Local Holder<Enchantment> enchantment, @Local int level) {
-        if (!this.dynamictooltips$heldStack.isEmpty() && EnchantmentTooltipHandler.getInstance().shouldDisplayDescription(this.dynamictooltips$heldStack)) {
-            EnchantmentTooltipHandler.getInstance().insertDescriptions(enchantment, level, tooltipConsumer);
+        if (tooltipConsumer instanceof TooltipBuildContext.DescribedEnchantmentLines) {
+            dynamictooltips$insertDescriptions(enchantment, level, tooltipConsumer);
         }
     }
 
@@ -52,12 +40,26 @@ public class ItemEnchantmentsMixin implements EnchantmentContext {
     )
     private void dynamictooltips$addDescriptionUnsorted(Item.TooltipContext context, Consumer<Component> tooltipConsumer, TooltipFlag flag, CallbackInfo ci,
                                                         @Local Object2IntMap.Entry<Holder<Enchantment>> entry) {
-        if (!this.dynamictooltips$heldStack.isEmpty() && EnchantmentTooltipHandler.getInstance().shouldDisplayDescription(this.dynamictooltips$heldStack)) {
+        if (tooltipConsumer instanceof TooltipBuildContext.DescribedEnchantmentLines) {
             if (entry != null) {
                 Holder<Enchantment> enchantment = entry.getKey();
                 int level = entry.getIntValue();
-                EnchantmentTooltipHandler.getInstance().insertDescriptions(enchantment, level, tooltipConsumer);
+                dynamictooltips$insertDescriptions(enchantment, level, tooltipConsumer);
             }
         }
     }
+
+    @Unique
+    private static void dynamictooltips$insertDescriptions(Holder<Enchantment> enchantment, int level, Consumer<Component> tooltipConsumer) {
+        if (!TooltipProfiler.ENABLED) {
+            EnchantmentTooltipHandler.getInstance().insertDescriptions(enchantment, level, tooltipConsumer);
+            return;
+        }
+        TooltipProfiler.begin(TooltipProfiler.Stage.ENCHANTMENT_DESCRIPTIONS);
+        try {
+            EnchantmentTooltipHandler.getInstance().insertDescriptions(enchantment, level, tooltipConsumer);
+        } finally {
+            TooltipProfiler.end(TooltipProfiler.Stage.ENCHANTMENT_DESCRIPTIONS);
+        }
+    }
 }
\ No newline at end of file
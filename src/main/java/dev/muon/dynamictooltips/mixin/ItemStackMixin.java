@@ -1,18 +1,28 @@
 package dev.muon.dynamictooltips.mixin;
 
 import com.llamalad7.mixinextras.injector.ModifyReturnValue;
-import com.llamalad7.mixinextras.sugar.Local;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import com.llamalad7.mixinextras.sugar.Share;
+import com.llamalad7.mixinextras.sugar.ref.LocalRef;
+import dev.muon.dynamictooltips.TooltipProfiler;
+import dev.muon.dynamictooltips.handlers.AttributeLineTags;
 import dev.muon.dynamictooltips.handlers.AttributeTooltipHandler;
 import dev.muon.dynamictooltips.handlers.EnchantmentTooltipHandler;
-import dev.muon.dynamictooltips.handlers.TooltipPromptHandler;
-import net.minecraft.world.entity.EquipmentSlotGroup;
+import dev.muon.dynamictooltips.handlers.PlayerIndependentTooltips;
+import dev.muon.dynamictooltips.handlers.TooltipBuildContext;
+import dev.muon.dynamictooltips.handlers.TooltipCache;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 
+import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.core.component.DataComponentType;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.Item;
@@ -20,19 +30,30 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.TooltipFlag;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
-import java.util.ListIterator;
-import dev.muon.dynamictooltips.config.DynamicTooltipsConfig;
-import dev.muon.dynamictooltips.Keybindings;
+import java.util.function.Consumer;
 
 @Mixin(ItemStack.class)
 public class ItemStackMixin {
-    // Reset the shift prompt flag at the beginning of tooltip generation for each item
+    // Fresh state for every call, shared with the injections below
     @Inject(
             method = "getTooltipLines(Lnet/minecraft/world/item/Item$TooltipContext;Lnet/minecraft/world/entity/player/Player;Lnet/minecraft/world/item/TooltipFlag;)Ljava/util/List;",
             at = @At("HEAD")
     )
-    private void dynamictooltips$resetPromptFlag(Item.TooltipContext context, Player player, TooltipFlag flags, CallbackInfoReturnable<List<Component>> cir) {
-        TooltipPromptHandler.promptAddedThisTick = false;
+    private void dynamictooltips$createContext(Item.TooltipContext context, Player player, TooltipFlag flags, CallbackInfoReturnable<List<Component>> cir,
+                                               @Share("tooltipContext") LocalRef<TooltipBuildContext> contextRef) {
+        contextRef.set(new TooltipBuildContext((ItemStack) (Object) this));
+    }
+
+    // Tag every line vanilla emits for attributes, so sections can later be found by reference
+    @WrapOperation(
+            method = "getTooltipLines(Lnet/minecraft/world/item/Item$TooltipContext;Lnet/minecraft/world/entity/player/Player;Lnet/minecraft/world/item/TooltipFlag;)Ljava/util/List;",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;addAttributeTooltips(Ljava/util/function/Consumer;Lnet/minecraft/world/entity/player/Player;)V")
+    )
+    private void dynamictooltips$tagAttributeLines(ItemStack instance, Consumer<Component> tooltipAdder, Player player, Operation<Void> original,
+                                                   @Share("attributeLineTags") LocalRef<AttributeLineTags> tagsRef) {
+        AttributeLineTags tags = new AttributeLineTags();
+        tagsRef.set(tags);
+        original.call(instance, tags.wrap(tooltipAdder), player);
     }
 
     // Modify the final tooltip list after all vanilla processing
@@ -40,63 +61,99 @@ public class ItemStackMixin {
             method = "getTooltipLines",
             at = @At("RETURN")
     )
-    private List<Component> modifyTooltipLines(List<Component> tooltip, Item.TooltipContext context, @Nullable Player player, TooltipFlag type) {
-        if (!(player instanceof LocalPlayer) || context == null || Minecraft.getInstance() == null || Minecraft.getInstance().level == null) {
+    private List<Component> modifyTooltipLines(List<Component> tooltip, Item.TooltipContext context, @Nullable Player player, TooltipFlag type,
+                                               @Share("attributeLineTags") LocalRef<AttributeLineTags> tagsRef,
+                                               @Share("tooltipContext") LocalRef<TooltipBuildContext> contextRef) {
+        TooltipBuildContext buildContext = contextRef.get();
+        if (buildContext == null) {
+            buildContext = new TooltipBuildContext((ItemStack) (Object) this);
+        }
+        if (!TooltipProfiler.ENABLED) {
+            return dynamictooltips$modifyTooltipLines(tooltip, context, player, type, tagsRef.get(), buildContext);
+        }
+        TooltipProfiler.begin(TooltipProfiler.Stage.MODIFY_TOOLTIP_LINES);
+        try {
+            return dynamictooltips$modifyTooltipLines(tooltip, context, player, type, tagsRef.get(), buildContext);
+        } finally {
+            TooltipProfiler.end(TooltipProfiler.Stage.MODIFY_TOOLTIP_LINES);
+        }
+    }
+
+    @Unique
+    private List<Component> dynamictooltips$modifyTooltipLines(List<Component> tooltip, Item.TooltipContext context, @Nullable Player player, TooltipFlag type,
+                                                               @Nullable AttributeLineTags tags, TooltipBuildContext buildContext) {
+        if (context == null) {
              return tooltip;
         }
 
         ItemStack stack = (ItemStack)(Object)this;
 
-        // Process attributes first, potentially modifying the tooltip and getting the result
-        AttributeTooltipHandler.ProcessingResult result = AttributeTooltipHandler.processTooltip(stack, tooltip, player);
+        if (!(player instanceof LocalPlayer) || !RenderSystem.isOnRenderThread()
+                || Minecraft.getInstance() == null || Minecraft.getInstance().level == null) {
+            // Recipe viewers and search indexes ask without a player or from worker threads, where the tooltip cache
+            // and the player's range snapshot can't be used. Merge against the default player base values instead
+            PlayerIndependentTooltips.processTooltip(stack, tooltip, tags);
+            return tooltip;
+        }
 
-        // Clean up any original attribute headers that might remain if attributes were merged
-        if (result.modified() && result.finalHeader() != null) {
-            Component correctHeader = result.finalHeader();
-            ListIterator<Component> iterator = tooltip.listIterator();
-            while (iterator.hasNext()) {
-                Component currentLine = iterator.next();
-                EquipmentSlotGroup slotGroup = AttributeTooltipHandler.getSlotFromText(currentLine);
-                if (slotGroup != null && !currentLine.equals(correctHeader)) {
-                    iterator.remove();
-                }
+        // Reuse the previous result if nothing that feeds into it has changed
+        TooltipCache.Key cacheKey = TooltipCache.Key.of(stack, player, type);
+        TooltipCache.Cached cached = TooltipCache.get(cacheKey, tooltip);
+        if (cached != null) {
+            tooltip.clear();
+            tooltip.addAll(cached.lines());
+            if (cached.needsShiftPrompt()) {
+                buildContext.addExpandPrompt(tooltip::add);
             }
+            return tooltip;
         }
+        List<Component> vanillaLines = new ArrayList<>(tooltip);
 
-        if (DynamicTooltipsConfig.CLIENT.showUsabilityHint.get() && !Keybindings.isDetailedView() && !TooltipPromptHandler.promptAddedThisTick) {
-            if (result.needsShiftPrompt()) {
-                tooltip.add(TooltipPromptHandler.getExpandPrompt());
-                TooltipPromptHandler.promptAddedThisTick = true;
-            }
+        // Process attributes first, potentially modifying the tooltip and getting the result
+        if (TooltipProfiler.ENABLED) TooltipProfiler.begin(TooltipProfiler.Stage.PROCESS_TOOLTIP);
+        AttributeTooltipHandler.ProcessingResult result;
+        try {
+            result = AttributeTooltipHandler.processTooltip(stack, tooltip, player, tags);
+        } finally {
+            if (TooltipProfiler.ENABLED) TooltipProfiler.end(TooltipProfiler.Stage.PROCESS_TOOLTIP);
         }
 
+        TooltipCache.put(cacheKey, vanillaLines, tooltip, result.needsShiftPrompt());
+
+        // Kept out of the cached lines, it names the current key binding
+        if (result.needsShiftPrompt()) {
+            buildContext.addExpandPrompt(tooltip::add);
+        }
         return tooltip;
     }
 
-    // Inject before vanilla enchantment tooltips are added to set up context
-    @Inject(
+    // Stored enchantments: mark the consumer so descriptions are inserted when they should be shown
+    @WrapOperation(
             method = "getTooltipLines(Lnet/minecraft/world/item/Item$TooltipContext;Lnet/minecraft/world/entity/player/Player;Lnet/minecraft/world/item/TooltipFlag;)Ljava/util/List;",
             at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;addToTooltip(Lnet/minecraft/core/component/DataComponentType;Lnet/minecraft/world/item/Item$TooltipContext;Ljava/util/function/Consumer;Lnet/minecraft/world/item/TooltipFlag;)V", ordinal = 2)
     )
-    private void dynamictooltips$beforeEnchantmentTooltips(Item.TooltipContext context, Player player, TooltipFlag flags, CallbackInfoReturnable<List<Component>> cir) {
-        EnchantmentTooltipHandler.getInstance().setupContext((ItemStack) (Object) this);
+    private void dynamictooltips$describeStoredEnchantments(ItemStack instance, DataComponentType<?> component, Item.TooltipContext context, Consumer<Component> tooltipAdder, TooltipFlag flag,
+                                                            Operation<Void> original, @Share("tooltipContext") LocalRef<TooltipBuildContext> contextRef) {
+        TooltipBuildContext buildContext = contextRef.get();
+        original.call(instance, component, context, buildContext != null ? buildContext.enchantmentLines(tooltipAdder) : tooltipAdder, flag);
     }
 
-    // Inject after vanilla enchantment tooltips to revert context and potentially add shift prompt
-    @Inject(
+    // Enchantments: same as above, then prompt to expand collapsed descriptions
+    @WrapOperation(
             method = "getTooltipLines(Lnet/minecraft/world/item/Item$TooltipContext;Lnet/minecraft/world/entity/player/Player;Lnet/minecraft/world/item/TooltipFlag;)Ljava/util/List;",
-            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;addToTooltip(Lnet/minecraft/core/component/DataComponentType;Lnet/minecraft/world/item/Item$TooltipContext;Ljava/util/function/Consumer;Lnet/minecraft/world/item/TooltipFlag;)V", ordinal = 3, shift = At.Shift.AFTER)
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/item/ItemStack;addToTooltip(Lnet/minecraft/core/component/DataComponentType;Lnet/minecraft/world/item/Item$TooltipContext;Ljava/util/function/Consumer;Lnet/minecraft/world/item/TooltipFlag;)V", ordinal = 3)
     )
-    private void dynamictooltips$afterEnchantmentTooltips(Item.TooltipContext context, Player player, TooltipFlag flags, CallbackInfoReturnable<List<Component>> cir, @Local List<Component> list) {
-        ItemStack stack = (ItemStack) (Object) this;
-        EnchantmentTooltipHandler.getInstance().revertContext(stack);
+    private void dynamictooltips$describeEnchantments(ItemStack instance, DataComponentType<?> component, Item.TooltipContext context, Consumer<Component> tooltipAdder, TooltipFlag flag,
+                                                      Operation<Void> original, @Share("tooltipContext") LocalRef<TooltipBuildContext> contextRef) {
+        TooltipBuildContext buildContext = contextRef.get();
+        if (buildContext == null) {
+            original.call(instance, component, context, tooltipAdder, flag);
+            return;
+        }
+        original.call(instance, component, context, buildContext.enchantmentLines(tooltipAdder), flag);
 
-        // Use Keybindings.isDetailedView()
-        if (DynamicTooltipsConfig.CLIENT.showUsabilityHint.get() && !Keybindings.isDetailedView() && EnchantmentTooltipHandler.itemHasExpandableEnchantments(stack)) {
-            if (!TooltipPromptHandler.promptAddedThisTick) {
-                list.add(TooltipPromptHandler.getExpandPrompt());
-                TooltipPromptHandler.promptAddedThisTick = true;
-            }
+        if (EnchantmentTooltipHandler.itemHasExpandableEnchantments(instance)) {
+            buildContext.addExpandPrompt(tooltipAdder);
         }
     }
-}
\ No newline at end of file
+}
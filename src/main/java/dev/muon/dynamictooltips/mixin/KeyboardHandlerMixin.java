@@ -0,0 +1,18 @@
+package dev.muon.dynamictooltips.mixin;
+
+import dev.muon.dynamictooltips.Keybindings;
+import net.minecraft.client.KeyboardHandler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(KeyboardHandler.class)
+public class KeyboardHandlerMixin {
+
+    // At HEAD so screens that consume the key still update the latch
+    @Inject(method = "keyPress", at = @At("HEAD"))
+    private void dynamictooltips$latchDetailedView(long window, int key, int scancode, int action, int modifiers, CallbackInfo ci) {
+        Keybindings.onKey(key, scancode, action);
+    }
+}
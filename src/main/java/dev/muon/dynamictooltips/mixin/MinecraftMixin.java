@@ -0,0 +1,18 @@
+package dev.muon.dynamictooltips.mixin;
+
+import dev.muon.dynamictooltips.Keybindings;
+import net.minecraft.client.Minecraft;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Minecraft.class)
+public class MinecraftMixin {
+
+    // A release while unfocused never reaches the key handler, so the latch would stay down after alt-tabbing
+    @Inject(method = "setWindowActive", at = @At("TAIL"))
+    private void dynamictooltips$resyncDetailedView(boolean windowActive, CallbackInfo ci) {
+        Keybindings.onFocusChanged(windowActive);
+    }
+}
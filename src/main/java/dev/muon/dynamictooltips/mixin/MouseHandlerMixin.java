@@ -0,0 +1,18 @@
+package dev.muon.dynamictooltips.mixin;
+
+import dev.muon.dynamictooltips.Keybindings;
+import net.minecraft.client.MouseHandler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(MouseHandler.class)
+public class MouseHandlerMixin {
+
+    // At HEAD so screens that consume the click still update the latch
+    @Inject(method = "onPress", at = @At("HEAD"))
+    private void dynamictooltips$latchDetailedView(long window, int button, int action, int modifiers, CallbackInfo ci) {
+        Keybindings.onMouseButton(button, action);
+    }
+}
@@ -0,0 +1,13 @@
+package dev.muon.dynamictooltips.mixin.accessor;
+
+import net.minecraft.client.resources.language.ClientLanguage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.Map;
+
+@Mixin(ClientLanguage.class)
+public interface ClientLanguageAccessor {
+    @Accessor("storage")
+    Map<String, String> dynamicTooltips$getStorage();
+}
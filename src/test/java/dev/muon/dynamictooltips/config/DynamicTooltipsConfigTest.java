@@ -0,0 +1,114 @@
+package dev.muon.dynamictooltips.config;
+
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Readers racing config reloads must only ever see complete snapshots: every rule compiled for the generation the
+ * snapshot carries, and generations that never go backwards.
+ */
+class DynamicTooltipsConfigTest {
+
+    private static final int RULES = 32;
+    private static final int WRITERS = 2;
+    private static final int PUBLISHES_PER_WRITER = 2_000;
+    private static final int READERS = 4;
+
+    @Test
+    void readersNeverSeeHalfBuiltRules() throws InterruptedException {
+        int baseline = DynamicTooltipsConfig.generation();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                await(start);
+                int last = baseline;
+                while (!done.get() && failure.get() == null) {
+                    DynamicTooltipsConfig.Snapshot snapshot = DynamicTooltipsConfig.snapshot();
+                    String problem = snapshot.generation() < last
+                            ? "generation went back from " + last + " to " + snapshot.generation()
+                            : verify(snapshot, baseline);
+                    if (problem != null) {
+                        failure.compareAndSet(null, problem);
+                    }
+                    last = snapshot.generation();
+                }
+            }, "config-reader-" + r);
+            reader.start();
+            readers.add(reader);
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            Thread writer = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < PUBLISHES_PER_WRITER; i++) {
+                    DynamicTooltipsConfig.publish(DynamicTooltipsConfigTest::snapshotWithRules);
+                }
+            }, "config-writer-" + w);
+            writer.start();
+            writers.add(writer);
+        }
+
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get(), failure.get());
+        // Serialized publishes never lose a generation
+        assertEquals(baseline + WRITERS * PUBLISHES_PER_WRITER, DynamicTooltipsConfig.generation());
+        assertNull(verify(DynamicTooltipsConfig.snapshot(), baseline));
+    }
+
+    // Each rule names the generation it was compiled for, so a mixed or partial table is detectable
+    private static DynamicTooltipsConfig.Snapshot snapshotWithRules(int generation) {
+        List<String> rules = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            rules.add("dynamictooltips:gen_" + generation + "_" + i + ":INVERTED");
+        }
+        return DynamicTooltipsConfig.Snapshot.create(true, false, true, true,
+                "#AAAAAA", "#FF55FF", "#808080", 200, rules, generation);
+    }
+
+    private static String verify(DynamicTooltipsConfig.Snapshot snapshot, int baseline) {
+        if (snapshot.generation() <= baseline) {
+            // Published before the test started, not built by it
+            return null;
+        }
+        if (snapshot.attributeColorRules().size() != RULES) {
+            return "generation " + snapshot.generation() + " has " + snapshot.attributeColorRules().size() + " rules";
+        }
+        String prefix = "gen_" + snapshot.generation() + "_";
+        for (ResourceLocation id : snapshot.attributeColorRules().keySet()) {
+            if (!id.getPath().startsWith(prefix)) {
+                return "generation " + snapshot.generation() + " holds rule " + id;
+            }
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
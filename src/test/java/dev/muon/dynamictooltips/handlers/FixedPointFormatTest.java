@@ -0,0 +1,118 @@
+package dev.muon.dynamictooltips.handlers;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Compares {@link FixedPointFormat} against the {@code DecimalFormat("#.##")} it replaced, over every region with its
+ * own code path: the cached table, the exact half-even rounding, and the fallback from 2^46 up.
+ */
+class FixedPointFormatTest {
+
+    private final DecimalFormat reference = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.ROOT));
+    private final List<String> mismatches = new ArrayList<>();
+
+    @Test
+    void cachedIntegersAndHalves() {
+        for (int halves = 0; halves <= 2 * 300; halves++) {
+            double value = halves / 2.0;
+            check(value);
+            check(-value);
+        }
+        assertNoMismatches();
+        // The table hands out one instance per value
+        assertSame(FixedPointFormat.format(2.5), FixedPointFormat.format(2.5));
+        assertSame(FixedPointFormat.format(-16), FixedPointFormat.format(-16.0));
+    }
+
+    @Test
+    void halfEvenBoundaries() {
+        // Every x.xx5 up to 1000 and its neighbouring doubles, most of which aren't exactly representable
+        for (long thousandths = 5; thousandths <= 1_000_000; thousandths += 10) {
+            double value = thousandths / 1000.0;
+            checkWithNeighbours(value);
+            checkWithNeighbours(-value);
+        }
+        // Ties that are exact in binary must round to even
+        for (long quarters = 1; quarters <= 400_000; quarters += 2) {
+            double value = quarters / 400.0;
+            check(value);
+            check(-value);
+        }
+        assertNoMismatches();
+    }
+
+    @Test
+    void everyThousandth() {
+        for (long thousandths = -1_000_000; thousandths <= 1_000_000; thousandths++) {
+            checkWithNeighbours(thousandths / 1000.0);
+        }
+        assertNoMismatches();
+    }
+
+    @Test
+    void aroundFallbackLimit() {
+        double limit = 0x1p46;
+        for (int step = -1000; step <= 1000; step++) {
+            // Spacing is 2^-7 just below the limit and 2^-6 from it on
+            check(limit + step * 0x1p-7);
+            check(-(limit + step * 0x1p-7));
+        }
+        checkWithNeighbours(limit);
+        checkWithNeighbours(-limit);
+        for (double value : new double[]{1e15, 1076479509747073.6, 1e16, 1e20, 1e300, Double.MAX_VALUE}) {
+            checkWithNeighbours(value);
+            checkWithNeighbours(-value);
+        }
+        assertNoMismatches();
+    }
+
+    @Test
+    void specialValues() {
+        for (double value : new double[]{0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, -Double.MIN_NORMAL, 0.004999, -0.004999, -0.005}) {
+            check(value);
+        }
+        assertNoMismatches();
+        assertEquals("-0", FixedPointFormat.format(-0.0));
+        assertEquals("-0", FixedPointFormat.format(-0.001));
+    }
+
+    @Test
+    void randomValues() {
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < 500_000; i++) {
+            check(random.nextGaussian() * Math.pow(10, random.nextInt(18) - 4));
+            check(Double.longBitsToDouble(random.nextLong()));
+            check(Math.scalb(1.0 + random.nextDouble(), random.nextInt(50)) * (random.nextBoolean() ? 1 : -1));
+        }
+        assertNoMismatches();
+    }
+
+    private void checkWithNeighbours(double value) {
+        check(Math.nextDown(value));
+        check(value);
+        check(Math.nextUp(value));
+    }
+
+    private void check(double value) {
+        String expected = reference.format(value);
+        String actual = FixedPointFormat.format(value);
+        if (!expected.equals(actual) && mismatches.size() < 20) {
+            mismatches.add(value + " formatted as " + actual + ", DecimalFormat gives " + expected);
+        }
+    }
+
+    private void assertNoMismatches() {
+        assertEquals(List.of(), mismatches);
+    }
+}
@@ -0,0 +1,245 @@
+package dev.muon.dynamictooltips.handlers;
+
+import dev.muon.dynamictooltips.DetailedViewInput;
+import dev.muon.dynamictooltips.Keybindings;
+import dev.muon.dynamictooltips.compat.WeaponInfo;
+import net.minecraft.core.Holder;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier.Operation;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.ai.attributes.RangedAttribute;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Renders the same modifiers through {@link LegacyMergeEngine} and the flat engine in {@link MergedAttributeModel},
+ * in both the collapsed and the detailed view, and requires the same lines and the same prompt.
+ * <p>
+ * Base attribute totals use amounts that are exact in binary and stay within the attribute's range. The shared
+ * evaluator sums them in a different order and clamps them, neither of which belongs to the merge engine.
+ */
+class MergeEngineTest {
+
+    private static final Holder<Attribute> UNREGISTERED = Holder.direct(
+            new RangedAttribute("attribute.dynamictooltips.test.unregistered", 0, -1024, 1024));
+    private static final Holder<Attribute> OTHER_UNREGISTERED = Holder.direct(
+            new RangedAttribute("attribute.dynamictooltips.test.other_unregistered", 0, -1024, 1024));
+
+    private static AttributeMap attributes;
+    private int nextId = 0;
+
+    @BeforeAll
+    static void bootstrap() {
+        TooltipFixtures.bootstrap();
+        attributes = TooltipFixtures.playerAttributes();
+    }
+
+    @AfterEach
+    void releaseKey() {
+        Keybindings.setInput(DetailedViewInput.RELEASED);
+    }
+
+    @Test
+    void fixtureStacks() {
+        for (int count : new int[]{0, 1, 8, 32, 64}) {
+            for (int groups = 1; groups <= 3; groups++) {
+                SlotModifierBuckets buckets = SlotModifierBuckets.of(TooltipFixtures.stack(count, 0, groups));
+                for (EquipmentSlotGroup group : new EquipmentSlotGroup[]{EquipmentSlotGroup.MAINHAND, EquipmentSlotGroup.HAND}) {
+                    assertSameTooltip(count + " modifiers over " + groups + " groups, " + group, buckets.get(group));
+                }
+            }
+        }
+    }
+
+    @Test
+    void sumsCancellingToZero() {
+        SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+        add(bucket, Attributes.ARMOR, 0.5, Operation.ADD_VALUE);
+        add(bucket, Attributes.ARMOR, -0.25, Operation.ADD_VALUE);
+        add(bucket, Attributes.ARMOR, -0.25, Operation.ADD_VALUE);
+        add(bucket, Attributes.ARMOR, 0.1, Operation.ADD_MULTIPLIED_TOTAL);
+        // Decimal amounts that don't cancel exactly in binary
+        add(bucket, Attributes.MOVEMENT_SPEED, 0.1, Operation.ADD_MULTIPLIED_BASE);
+        add(bucket, Attributes.MOVEMENT_SPEED, 0.2, Operation.ADD_MULTIPLIED_BASE);
+        add(bucket, Attributes.MOVEMENT_SPEED, -0.3, Operation.ADD_MULTIPLIED_BASE);
+        // Every operation cancels, the attribute shows no line at all
+        add(bucket, Attributes.LUCK, 2, Operation.ADD_VALUE);
+        add(bucket, Attributes.LUCK, -2, Operation.ADD_VALUE);
+        // Children of a base value that cancel out still merge into it
+        addBase(bucket, Attributes.ATTACK_DAMAGE, Item.BASE_ATTACK_DAMAGE_ID, 8);
+        add(bucket, Attributes.ATTACK_DAMAGE, 1.5, Operation.ADD_VALUE);
+        add(bucket, Attributes.ATTACK_DAMAGE, -1.5, Operation.ADD_VALUE);
+        assertSameTooltip("cancelling sums", bucket);
+    }
+
+    @Test
+    void duplicateBaseModifierIds() {
+        SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+        add(bucket, Attributes.ARMOR, 2, Operation.ADD_VALUE);
+        addBase(bucket, Attributes.ATTACK_DAMAGE, Item.BASE_ATTACK_DAMAGE_ID, 6);
+        add(bucket, Attributes.ATTACK_DAMAGE, 0.5, Operation.ADD_MULTIPLIED_BASE);
+        addBase(bucket, Attributes.ATTACK_SPEED, Item.BASE_ATTACK_SPEED_ID, 4);
+        // Shown at the first one's position with the last one's value
+        addBase(bucket, Attributes.ATTACK_DAMAGE, Item.BASE_ATTACK_DAMAGE_ID, 9);
+        add(bucket, Attributes.ATTACK_SPEED, -0.25, Operation.ADD_MULTIPLIED_TOTAL);
+        addBase(bucket, Attributes.ATTACK_SPEED, Item.BASE_ATTACK_SPEED_ID, 5);
+        // A base modifier id on an attribute without a base value is an ordinary modifier
+        add(bucket, Attributes.ARMOR, Item.BASE_ATTACK_DAMAGE_ID, 1, Operation.ADD_VALUE);
+        assertSameTooltip("duplicate base ids", bucket);
+    }
+
+    @Test
+    void mixedOperationsOnOneAttribute() {
+        SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+        double[] amounts = {1, -0.5, 0.25, 0, 3, -3, 0.1, 0.35};
+        for (Operation operation : Operation.values()) {
+            for (double amount : amounts) {
+                add(bucket, Attributes.MAX_HEALTH, amount, operation);
+            }
+        }
+        // A single modifier per operation is shown as-is, next to merged operations
+        add(bucket, Attributes.KNOCKBACK_RESISTANCE, 0.1, Operation.ADD_VALUE);
+        add(bucket, Attributes.KNOCKBACK_RESISTANCE, 0.5, Operation.ADD_MULTIPLIED_BASE);
+        add(bucket, Attributes.KNOCKBACK_RESISTANCE, 0.25, Operation.ADD_MULTIPLIED_BASE);
+        // Same id, operation and amount twice, ties keep insertion order in both
+        AttributeModifier repeated = new AttributeModifier(id(), 0.5, Operation.ADD_VALUE);
+        bucket.add(Attributes.ARMOR_TOUGHNESS, repeated);
+        add(bucket, Attributes.ARMOR_TOUGHNESS, 0.5, Operation.ADD_VALUE);
+        bucket.add(Attributes.ARMOR_TOUGHNESS, repeated);
+        // Left to the block range handler by both
+        add(bucket, Attributes.BLOCK_INTERACTION_RANGE, 1, Operation.ADD_VALUE);
+        // A base attribute, but without a base modifier id it merges like any other
+        add(bucket, Attributes.ENTITY_INTERACTION_RANGE, 0.5, Operation.ADD_VALUE);
+        add(bucket, Attributes.ENTITY_INTERACTION_RANGE, 0.5, Operation.ADD_VALUE);
+        assertSameTooltip("mixed operations", bucket);
+    }
+
+    @Test
+    void unregisteredAttribute() {
+        SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+        add(bucket, UNREGISTERED, 1, Operation.ADD_VALUE);
+        add(bucket, Attributes.ARMOR, 2, Operation.ADD_VALUE);
+        add(bucket, UNREGISTERED, 0.5, Operation.ADD_VALUE);
+        add(bucket, UNREGISTERED, 0.25, Operation.ADD_MULTIPLIED_TOTAL);
+        add(bucket, Attributes.LUCK, -1, Operation.ADD_VALUE);
+        assertSameTooltip("unregistered attribute", bucket);
+    }
+
+    /**
+     * The legacy engine keyed its sorted map by registry id, so all unregistered attributes shared one null key and
+     * only one of them was shown, with the last one's modifiers. That can't serve as a reference; the flat engine
+     * keeps each, after the registered ones in order of appearance.
+     */
+    @Test
+    void severalUnregisteredAttributesAreEachShown() {
+        SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+        add(bucket, OTHER_UNREGISTERED, 3, Operation.ADD_VALUE);
+        add(bucket, UNREGISTERED, 1, Operation.ADD_VALUE);
+        add(bucket, Attributes.ARMOR, 2, Operation.ADD_VALUE);
+        add(bucket, OTHER_UNREGISTERED, 4, Operation.ADD_VALUE);
+
+        List<Component> lines = new ArrayList<>();
+        renderFlat(bucket, lines);
+        // The stub language has no names for these, they render as their keys
+        assertEquals(List.of(
+                "+2 " + Attributes.ARMOR.value().getDescriptionId(),
+                "+7 " + OTHER_UNREGISTERED.value().getDescriptionId(),
+                "+1 " + UNREGISTERED.value().getDescriptionId()
+        ), lines.stream().map(Component::getString).toList());
+    }
+
+    @Test
+    void randomModifiers() {
+        List<Holder<Attribute>> pool = List.of(
+                Attributes.ARMOR, Attributes.ARMOR_TOUGHNESS, Attributes.MOVEMENT_SPEED, Attributes.MAX_HEALTH,
+                Attributes.KNOCKBACK_RESISTANCE, Attributes.LUCK, Attributes.ENTITY_INTERACTION_RANGE,
+                Attributes.BLOCK_INTERACTION_RANGE, Attributes.ATTACK_DAMAGE, Attributes.ATTACK_SPEED, UNREGISTERED);
+        Operation[] operations = Operation.values();
+        Random random = new Random(0x3E76E);
+
+        for (int round = 0; round < 500; round++) {
+            SlotModifierBuckets.Bucket bucket = new SlotModifierBuckets.Bucket();
+            List<AttributeModifier> added = new ArrayList<>();
+            int count = random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                Holder<Attribute> attribute = pool.get(random.nextInt(pool.size()));
+                Operation operation = operations[random.nextInt(operations.length)];
+                if (attribute == Attributes.ATTACK_DAMAGE || attribute == Attributes.ATTACK_SPEED) {
+                    if (random.nextInt(4) == 0) {
+                        addBase(bucket, attribute, attribute == Attributes.ATTACK_DAMAGE
+                                ? Item.BASE_ATTACK_DAMAGE_ID : Item.BASE_ATTACK_SPEED_ID, 8 + random.nextInt(8));
+                    } else {
+                        // Eighths from -1/4 up, so the base value stays positive and exact
+                        add(bucket, attribute, (random.nextInt(10) - 2) / 8.0, operation);
+                    }
+                } else if (!added.isEmpty() && random.nextInt(8) == 0) {
+                    // Repeat an earlier modifier, possibly on another attribute
+                    bucket.add(attribute, added.get(random.nextInt(added.size())));
+                } else {
+                    double amount = switch (random.nextInt(3)) {
+                        case 0 -> 0;
+                        case 1 -> (random.nextInt(17) - 8) / 4.0;
+                        default -> (random.nextInt(21) - 10) / 10.0;
+                    };
+                    AttributeModifier modifier = new AttributeModifier(id(), amount, operation);
+                    bucket.add(attribute, modifier);
+                    added.add(modifier);
+                }
+            }
+            assertSameTooltip("round " + round, bucket);
+        }
+    }
+
+    private void assertSameTooltip(String name, SlotModifierBuckets.Bucket bucket) {
+        for (boolean detailed : new boolean[]{false, true}) {
+            Keybindings.setInput(() -> detailed);
+            String view = name + (detailed ? ", detailed" : ", collapsed");
+
+            List<Component> legacyLines = new ArrayList<>();
+            AttributeTooltipHandler.TooltipApplyResult legacy = LegacyMergeEngine.applyTextFor(legacyLines::add, bucket, attributes);
+            List<Component> flatLines = new ArrayList<>();
+            AttributeTooltipHandler.TooltipApplyResult flat = renderFlat(bucket, flatLines);
+
+            assertEquals(TooltipFixtures.rendered(legacyLines), TooltipFixtures.rendered(flatLines), view);
+            assertEquals(legacy.needsShiftPrompt, flat.needsShiftPrompt, view);
+            assertEquals(legacy.handledAttributes, flat.handledAttributes, view);
+        }
+    }
+
+    // Without a player or weapon the range handlers add nothing, as they're left out of the legacy engine
+    private static AttributeTooltipHandler.TooltipApplyResult renderFlat(SlotModifierBuckets.Bucket bucket, List<Component> lines) {
+        MergedAttributeModel model = MergedAttributeModel.merge(EquipmentSlotGroup.MAINHAND, bucket);
+        return AttributeTooltipHandler.applyTextFor(ItemStack.EMPTY, lines::add, model, null, attributes, WeaponInfo.NONE);
+    }
+
+    private void add(SlotModifierBuckets.Bucket bucket, Holder<Attribute> attribute, double amount, Operation operation) {
+        add(bucket, attribute, id(), amount, operation);
+    }
+
+    private static void add(SlotModifierBuckets.Bucket bucket, Holder<Attribute> attribute, ResourceLocation id,
+                            double amount, Operation operation) {
+        bucket.add(attribute, new AttributeModifier(id, amount, operation));
+    }
+
+    private static void addBase(SlotModifierBuckets.Bucket bucket, Holder<Attribute> attribute, ResourceLocation id, double amount) {
+        add(bucket, attribute, id, amount, Operation.ADD_VALUE);
+    }
+
+    private ResourceLocation id() {
+        return ResourceLocation.fromNamespaceAndPath("test", "modifier_" + nextId++);
+    }
+}